@@ -0,0 +1,53 @@
+package org.example.benchmarks;
+
+import org.example.simulation.AccretionDisk;
+import org.example.simulation.BlackHole;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 吸积盘更新与颜色导出基准
+ * 吞吐量与采样时间（含p99）两种模式，按粒子数和线程数参数化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccretionDiskBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int particleCount;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ForkJoinPool pool;
+    private AccretionDisk disk;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        disk = new AccretionDisk(new BlackHole(), particleCount, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void update() {
+        disk.update(0.016f);
+    }
+
+    @Benchmark
+    public List<Vector3f> particleColors() {
+        return disk.getParticleColors();
+    }
+}
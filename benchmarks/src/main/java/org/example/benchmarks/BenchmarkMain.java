@@ -0,0 +1,41 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 在JMH命令行参数的基础上默认启用GC分析器（分配速率），并输出JSON结果便于比较不同版本
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+
+        Runner runner = new Runner(builder.build());
+        if (cmd.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.benchmarks;
+
+import org.example.simulation.BlackHole;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 黑洞引力计算基准
+ * 每次调用遍历一批固定采样点，按采样点数量参数化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackHoleBenchmark {
+
+    @Param({"1024"})
+    private int pointCount;
+
+    private BlackHole blackHole;
+    private Vector3f[] points;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        blackHole = new BlackHole();
+        Random random = new Random(42);
+        points = new Vector3f[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = new Vector3f(
+                    (random.nextFloat() - 0.5f) * 40.0f,
+                    (random.nextFloat() - 0.5f) * 40.0f,
+                    (random.nextFloat() - 0.5f) * 40.0f);
+        }
+    }
+
+    @Benchmark
+    public float gravityStrength() {
+        float sum = 0.0f;
+        for (Vector3f point : points) {
+            sum += blackHole.calculateGravityStrength(point);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.benchmarks;
+
+import org.example.core.Camera;
+import org.example.render.RayMarchRenderer;
+import org.example.simulation.BlackHole;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU光线步进渲染基准
+ * 按图像尺寸和渲染线程数参数化，每次调用渲染一整帧
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RayMarchBenchmark {
+
+    @Param({"320x200", "1280x800"})
+    private String imageSize;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private RayMarchRenderer renderer;
+    private Camera camera;
+    private float time;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] size = imageSize.split("x");
+        renderer = new RayMarchRenderer(new BlackHole(),
+                Integer.parseInt(size[0]), Integer.parseInt(size[1]), threads);
+        camera = new Camera();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.cleanup();
+    }
+
+    @Benchmark
+    public float[] render() {
+        time += 0.016f;
+        return renderer.render(camera, time);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.render;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于Java Vector API的SIMD步进内核
+ * 每次处理一组光线（AVX2为8条，AVX-512为16条），已到达视界、命中吸积盘或逃逸的通道被掩码屏蔽；
+ * 需要JDK 17+并以 --add-modules jdk.incubator.vector 启动，否则渲染器回退到标量路径
+ */
+final class VectorRayKernel implements RayBatchKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void march(RayMarchRenderer.FrameState frame, RayBatch batch) {
+        int lanes = SPECIES.length();
+        for (int base = 0; base < batch.count; base += lanes) {
+            marchGroup(frame, batch, base);
+        }
+    }
+
+    /**
+     * 步进一组光线 - 与RayMarchRenderer.traceRay()的循环逐步对应
+     */
+    private void marchGroup(RayMarchRenderer.FrameState frame, RayBatch batch, int base) {
+        VectorMask<Float> active = SPECIES.indexInRange(base, batch.count);
+
+        FloatVector dirX = FloatVector.fromArray(SPECIES, batch.dirX, base, active);
+        FloatVector dirY = FloatVector.fromArray(SPECIES, batch.dirY, base, active);
+        FloatVector dirZ = FloatVector.fromArray(SPECIES, batch.dirZ, base, active);
+        FloatVector posX = FloatVector.broadcast(SPECIES, frame.camX);
+        FloatVector posY = FloatVector.broadcast(SPECIES, frame.camY);
+        FloatVector posZ = FloatVector.broadcast(SPECIES, frame.camZ);
+
+        FloatVector.broadcast(SPECIES, RayBatch.EXHAUSTED).intoArray(batch.state, base, active);
+
+        FloatVector mass = FloatVector.broadcast(SPECIES, frame.mass);
+        FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+        float maxDistanceSquared = RayMarchRenderer.MAX_DISTANCE * RayMarchRenderer.MAX_DISTANCE;
+        float timePhase = frame.time * 1.5f;
+
+        for (int i = 0; i < RayMarchRenderer.MAX_STEPS && active.anyTrue(); i++) {
+            FloatVector toX = posX.neg().add(frame.holeX);
+            FloatVector toY = posY.neg().add(frame.holeY);
+            FloatVector toZ = posZ.neg().add(frame.holeZ);
+            FloatVector distSquared = toX.mul(toX).add(toY.mul(toY)).add(toZ.mul(toZ));
+            FloatVector dist = distSquared.sqrt();
+
+            // 事件视界检测
+            VectorMask<Float> captured = dist.lt(frame.eventHorizonRadius).and(active);
+            if (captured.anyTrue()) {
+                terminate(batch, base, captured, RayBatch.CAPTURED, posX, posY, posZ);
+                active = active.andNot(captured);
+            }
+
+            // 吸积盘检测
+            FloatVector diskRadius = posX.mul(posX).add(posZ.mul(posZ)).sqrt();
+            VectorMask<Float> inRing = diskRadius.compare(VectorOperators.GT, frame.innerDiskRadius)
+                    .and(diskRadius.lt(frame.outerDiskRadius)).and(active);
+            if (inRing.anyTrue()) {
+                FloatVector dynamic = diskRadius.mul(2.0f).sub(timePhase)
+                        .lanewise(VectorOperators.SIN).mul(0.03f);
+                FloatVector thickness = dynamic.mul(dynamic).add(0.08f);
+                VectorMask<Float> hit = posY.abs().lt(thickness).and(inRing);
+                if (hit.anyTrue()) {
+                    terminate(batch, base, hit, RayBatch.DISK, posX, posY, posZ);
+                    active = active.andNot(hit);
+                }
+            }
+
+            // 引力透镜效应
+            FloatVector gravityStrength = mass.div(distSquared.add(0.1f));
+            FloatVector bendFactor = gravityStrength.mul(0.12f).min(0.25f).div(dist);
+            dirX = dirX.add(toX.mul(bendFactor));
+            dirY = dirY.add(toY.mul(bendFactor));
+            dirZ = dirZ.add(toZ.mul(bendFactor));
+            FloatVector invLength = one.div(dirX.mul(dirX).add(dirY.mul(dirY)).add(dirZ.mul(dirZ)).sqrt());
+            dirX = dirX.mul(invLength);
+            dirY = dirY.mul(invLength);
+            dirZ = dirZ.mul(invLength);
+
+            // 自适应步长：mix(0.05, 0.3, smoothstep(0, 3, dist))
+            FloatVector t = dist.mul(1.0f / 3.0f).max(0.0f).min(1.0f);
+            FloatVector stepSize = t.mul(t).mul(t.mul(-2.0f).add(3.0f)).mul(0.25f).add(0.05f);
+            posX = posX.add(dirX.mul(stepSize));
+            posY = posY.add(dirY.mul(stepSize));
+            posZ = posZ.add(dirZ.mul(stepSize));
+
+            // 距离限制 - 光线逃逸
+            FloatVector ex = posX.sub(frame.camX);
+            FloatVector ey = posY.sub(frame.camY);
+            FloatVector ez = posZ.sub(frame.camZ);
+            VectorMask<Float> escaped = ex.mul(ex).add(ey.mul(ey)).add(ez.mul(ez))
+                    .compare(VectorOperators.GT, maxDistanceSquared).and(active);
+            if (escaped.anyTrue()) {
+                terminate(batch, base, escaped, RayBatch.ESCAPED, posX, posY, posZ);
+                dirX.intoArray(batch.dirX, base, escaped);
+                dirY.intoArray(batch.dirY, base, escaped);
+                dirZ.intoArray(batch.dirZ, base, escaped);
+                active = active.andNot(escaped);
+            }
+        }
+    }
+
+    /**
+     * 写回已终止通道的结果和位置
+     */
+    private static void terminate(RayBatch batch, int base, VectorMask<Float> lanes, float state,
+                                  FloatVector posX, FloatVector posY, FloatVector posZ) {
+        FloatVector.broadcast(SPECIES, state).intoArray(batch.state, base, lanes);
+        posX.intoArray(batch.posX, base, lanes);
+        posY.intoArray(batch.posY, base, lanes);
+        posZ.intoArray(batch.posZ, base, lanes);
+    }
+}
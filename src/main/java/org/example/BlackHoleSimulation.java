@@ -1,9 +1,14 @@
 package org.example;
 
 import org.example.core.Camera;
+import org.example.core.GpuTimer;
 import org.example.core.ShaderProgram;
 import org.example.core.ShaderUtils;
 import org.example.core.Sphere;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.MetricsReporter;
+import org.example.metrics.Stage;
+import org.example.render.StarCatalog;
 import org.lwjgl.*;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.*;
@@ -26,6 +31,9 @@ import static org.lwjgl.system.MemoryUtil.*;
 public class BlackHoleSimulation {
     private static final int WIDTH = 1200;
     private static final int HEIGHT = 800;
+    // 星空点精灵的数量和所在天球半径
+    private static final int STAR_COUNT = 500;
+    private static final float STAR_DISTANCE = 25.0f;
 
     // OpenGL对象
     private long window;
@@ -34,7 +42,7 @@ public class BlackHoleSimulation {
     private Camera camera;
 
     // 模拟数据
-    private List<Vector3f> stars = new ArrayList<>();
+    private StarCatalog stars;
     private int starVAO, starVBO;
 
     // 鼠标控制
@@ -42,10 +50,37 @@ public class BlackHoleSimulation {
     private double lastY = HEIGHT / 2.0;
     private boolean firstMouse = true;
 
+    // 性能指标
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private MetricsReporter metricsReporter;
+    // 绘制阶段的GPU耗时（CPU侧只记录命令提交时间，没有意义）
+    private GpuTimer gpuTimer;
+
+    // 每帧复用的矩阵和向量，稳态渲染不分配对象
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private final Matrix4f blackHoleModel = new Matrix4f().scale(8.0f);
+    private final Matrix4f starModel = new Matrix4f();
+    private final Vector3f cameraPosition = new Vector3f();
+
     /**
      * 程序主入口
      */
     public static void main(String[] args) {
+        // 无窗口批量渲染模式
+        if (HeadlessSimulation.isRequested(args)) {
+            try {
+                HeadlessSimulation.fromArgs(args).run();
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            return;
+        }
+
         new BlackHoleSimulation().run();
     }
 
@@ -101,6 +136,11 @@ public class BlackHoleSimulation {
         // 设置回调函数
         setupCallbacks();
 
+        // 注册JMX指标并按配置启动周期性转储
+        gpuTimer = new GpuTimer(metrics, Stage.BLACK_HOLE_DRAW, Stage.STAR_DRAW);
+        metrics.registerMBeans();
+        metricsReporter = MetricsReporter.startFromSystemProperties(metrics);
+
         // 打印调试信息
         printDebugInfo();
     }
@@ -189,15 +229,8 @@ public class BlackHoleSimulation {
      * 初始化模拟数据（星空背景等）
      */
     private void initializeSimulationData() {
-        Random random = new Random();
-
         // 生成随机星空
-        for (int i = 0; i < 500; i++) {
-            float x = (random.nextFloat() - 0.5f) * 50.0f;
-            float y = (random.nextFloat() - 0.5f) * 50.0f;
-            float z = (random.nextFloat() - 0.5f) * 50.0f;
-            stars.add(new Vector3f(x, y, z));
-        }
+        stars = new StarCatalog(STAR_COUNT, new Random().nextLong());
 
         // 初始化星星的顶点缓冲区
         initStarBuffers();
@@ -214,22 +247,24 @@ public class BlackHoleSimulation {
         glBindVertexArray(starVAO);
         glBindBuffer(GL_ARRAY_BUFFER, starVBO);
 
-        // 创建星星顶点数据（位置 + 颜色）
-        List<Float> starData = new ArrayList<>();
-        for (Vector3f star : stars) {
+        // 创建星星顶点数据（位置 + 颜色），直接写入本地缓冲区
+        FloatBuffer starBuffer = BufferUtils.createFloatBuffer(stars.getCount() * 6);
+        for (int i = 0; i < stars.getCount(); i++) {
             // 位置
-            starData.add(star.x);
-            starData.add(star.y);
-            starData.add(star.z);
-            // 颜色（白色）
-            starData.add(1.0f);
-            starData.add(1.0f);
-            starData.add(1.0f);
+            starBuffer.put(stars.getDirectionX(i) * STAR_DISTANCE);
+            starBuffer.put(stars.getDirectionY(i) * STAR_DISTANCE);
+            starBuffer.put(stars.getDirectionZ(i) * STAR_DISTANCE);
+            // 颜色（按最大分量归一化，点精灵只保留色调）
+            float red = stars.getRed(i);
+            float green = stars.getGreen(i);
+            float blue = stars.getBlue(i);
+            float peak = Math.max(red, Math.max(green, blue));
+            starBuffer.put(red / peak);
+            starBuffer.put(green / peak);
+            starBuffer.put(blue / peak);
         }
 
         // 上传数据到GPU
-        FloatBuffer starBuffer = BufferUtils.createFloatBuffer(starData.size());
-        for (Float f : starData) starBuffer.put(f);
         starBuffer.flip();
         glBufferData(GL_ARRAY_BUFFER, starBuffer, GL_STATIC_DRAW);
 
@@ -262,7 +297,7 @@ public class BlackHoleSimulation {
      */
     private void printDebugInfo() {
         System.out.println("OpenGL version: " + glGetString(GL_VERSION));
-        System.out.println("Stars count: " + stars.size());
+        System.out.println("Stars count: " + stars.getCount());
     }
 
     /**
@@ -271,25 +306,38 @@ public class BlackHoleSimulation {
     private void loop() {
         double lastTime = glfwGetTime();
         int frameCount = 0;
+        // 上次打印的时间，FPS按两次打印之间的帧数计算
+        double lastReportTime = lastTime;
 
         while (!glfwWindowShouldClose(window)) {
+            long frameStart = System.nanoTime();
             double currentTime = glfwGetTime();
             float deltaTime = (float) (currentTime - lastTime);
             lastTime = currentTime;
 
-            // 计算并显示FPS
+            // 显示最近一段时间的FPS和帧时间分布（直方图从启动起累计，而非单帧的瞬时值）
             frameCount++;
             if (frameCount % 60 == 0) {
-                System.out.printf("FPS: %.1f, Camera: (%.1f, %.1f, %.1f)%n",
-                        1.0 / deltaTime, camera.getPosition().x, camera.getPosition().y, camera.getPosition().z);
+                double fps = 60 / (currentTime - lastReportTime);
+                lastReportTime = currentTime;
+                double p50 = metrics.getHistogram(Stage.FRAME).getPercentile(50.0) / 1e6;
+                double p99 = metrics.getHistogram(Stage.FRAME).getPercentile(99.0) / 1e6;
+                camera.getPosition(cameraPosition);
+                System.out.printf("FPS: %.1f, Frame p50 (cumulative): %.2fms, p99 (cumulative): %.2fms,"
+                                + " Camera: (%.1f, %.1f, %.1f)%n",
+                        fps, p50, p99, cameraPosition.x, cameraPosition.y, cameraPosition.z);
             }
 
             // 处理输入和渲染
+            long stageStart = System.nanoTime();
             processInput(deltaTime);
+            metrics.recordSince(Stage.INPUT, stageStart);
+
             render();
 
             glfwSwapBuffers(window);
             glfwPollEvents();
+            metrics.recordSince(Stage.FRAME, frameStart);
         }
     }
 
@@ -304,16 +352,23 @@ public class BlackHoleSimulation {
         shaderProgram.bind();
 
         // 设置视图和投影矩阵
+        long stageStart = System.nanoTime();
         setupCameraMatrices();
 
         // 设置着色器uniform变量
         setupShaderUniforms();
+        metrics.recordSince(Stage.UNIFORMS, stageStart);
 
         // 渲染黑洞（主要效果）
+        gpuTimer.begin(Stage.BLACK_HOLE_DRAW);
         renderBlackHole();
+        gpuTimer.end();
 
         // 渲染星空背景
+        gpuTimer.begin(Stage.STAR_DRAW);
         renderStars();
+        gpuTimer.end();
+        gpuTimer.endFrame();
 
         // 解绑着色器
         shaderProgram.unbind();
@@ -323,8 +378,8 @@ public class BlackHoleSimulation {
      * 设置相机矩阵
      */
     private void setupCameraMatrices() {
-        Matrix4f viewMatrix = camera.getViewMatrix();
-        Matrix4f projectionMatrix = new Matrix4f().perspective(
+        camera.getViewMatrix(viewMatrix);
+        projectionMatrix.setPerspective(
                 (float) Math.toRadians(camera.getZoom()),
                 (float) WIDTH / HEIGHT,
                 0.1f,
@@ -340,7 +395,7 @@ public class BlackHoleSimulation {
      */
     private void setupShaderUniforms() {
         // 设置相机位置
-        shaderProgram.setVec3("cameraPos", camera.getPosition());
+        shaderProgram.setVec3("cameraPos", camera.getPosition(cameraPosition));
         shaderProgram.setFloat("time", (float) glfwGetTime());
 
         // 设置黑洞物理参数
@@ -356,8 +411,7 @@ public class BlackHoleSimulation {
      */
     private void renderBlackHole() {
         // 设置模型矩阵 - 放大球体以覆盖更多屏幕空间
-        Matrix4f model = new Matrix4f().identity().scale(8.0f);
-        shaderProgram.setMat4("model", model);
+        shaderProgram.setMat4("model", blackHoleModel);
 
         // 渲染球体（黑洞效果在片段着色器中计算）
         sphere.render();
@@ -370,12 +424,11 @@ public class BlackHoleSimulation {
         glBindVertexArray(starVAO);
 
         // 设置模型矩阵为单位矩阵
-        Matrix4f model = new Matrix4f().identity();
-        shaderProgram.setMat4("model", model);
+        shaderProgram.setMat4("model", starModel);
 
         // 设置点大小并绘制
         glPointSize(2.0f);
-        glDrawArrays(GL_POINTS, 0, stars.size());
+        glDrawArrays(GL_POINTS, 0, stars.getCount());
 
         glBindVertexArray(0);
     }
@@ -471,6 +524,11 @@ public class BlackHoleSimulation {
      * 清理资源
      */
     private void cleanup() {
+        // 写出最后一次指标
+        if (metricsReporter != null) {
+            metricsReporter.stop();
+        }
+
         // 释放窗口回调并销毁窗口
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
@@ -494,6 +552,10 @@ public class BlackHoleSimulation {
             glDeleteBuffers(starVBO);
         }
 
+        if (gpuTimer != null) {
+            gpuTimer.cleanup();
+        }
+
         // 清理着色器程序
         if (shaderProgram != null) {
             shaderProgram.cleanup();
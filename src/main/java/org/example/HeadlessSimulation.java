@@ -0,0 +1,279 @@
+package org.example;
+
+import org.example.core.Camera;
+import org.example.core.CameraPath;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.MetricsReporter;
+import org.example.metrics.Stage;
+import org.example.render.FrameWriter;
+import org.example.render.LodPolicy;
+import org.example.render.ProgressiveRenderer;
+import org.example.render.TemporalRenderer;
+import org.example.render.RayMarchRenderer;
+import org.example.render.SkyCubeMap;
+import org.example.render.StarCatalog;
+import org.example.simulation.BlackHole;
+
+import java.io.File;
+
+/**
+ * 无窗口批量渲染程序
+ * 不创建GLFW窗口，按固定帧率推进时间和相机路径，在CPU上逐帧渲染并写出图像序列
+ */
+public class HeadlessSimulation {
+    private static final String USAGE =
+            "Usage: --headless --frames N --out DIR [--width W] [--height H] [--fps F]"
+                    + " [--format png|ppm] [--threads T] [--queue Q]"
+                    + " [--deflection-table] [--geodesic] [--kerr SPIN] [--tolerance TOL]"
+                    + " [--progressive BUDGET_MS] [--threshold T] [--temporal] [--noise-cache]"
+                    + " [--blackbody] [--doppler] [--lod] [--stars N] [--sky-cache FACE_SIZE]";
+    // 星表的固定种子，保证每次运行星空一致
+    private static final long STAR_SEED = 0x5eedL;
+
+    private int frames = 60;
+    private File outputDir = new File("frames");
+    private int width = 1200;
+    private int height = 800;
+    private float fps = 30.0f;
+    private FrameWriter.Format format = FrameWriter.Format.PNG;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 4;
+    private boolean useDeflectionTable;
+    private boolean useGeodesicIntegrator;
+    private double geodesicTolerance = 1e-6;
+    // 克尔模式及黑洞自旋a/M
+    private boolean useKerr;
+    private float spin;
+    // 渐进渲染的每帧时间预算（毫秒），0表示单遍渲染
+    private long progressiveBudgetMillis;
+    private float refineThreshold = 0.1f;
+    private boolean useTemporalCache;
+    private boolean useNoiseCache;
+    private boolean useBlackbody;
+    private boolean useDoppler;
+    private boolean useLod;
+    // 星表恒星数，0表示使用着色器的哈希星空
+    private int starCount;
+    // 星空立方体贴图每个面的边长，0表示不烘焙
+    private int skyFaceSize;
+
+    /**
+     * 检查命令行是否请求无窗口模式
+     */
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if ("--headless".equals(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从命令行参数创建
+     */
+    public static HeadlessSimulation fromArgs(String[] args) {
+        HeadlessSimulation simulation = new HeadlessSimulation();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--headless".equals(arg)) {
+                continue;
+            }
+            if ("--deflection-table".equals(arg)) {
+                simulation.useDeflectionTable = true;
+                continue;
+            }
+            if ("--geodesic".equals(arg)) {
+                simulation.useGeodesicIntegrator = true;
+                continue;
+            }
+            if ("--noise-cache".equals(arg)) {
+                simulation.useNoiseCache = true;
+                continue;
+            }
+            if ("--blackbody".equals(arg)) {
+                simulation.useBlackbody = true;
+                continue;
+            }
+            if ("--doppler".equals(arg)) {
+                simulation.useDoppler = true;
+                continue;
+            }
+            if ("--lod".equals(arg)) {
+                simulation.useLod = true;
+                continue;
+            }
+            if ("--temporal".equals(arg)) {
+                simulation.useTemporalCache = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg + "\n" + USAGE);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--frames":
+                    simulation.frames = Integer.parseInt(value);
+                    break;
+                case "--out":
+                    simulation.outputDir = new File(value);
+                    break;
+                case "--width":
+                    simulation.width = Integer.parseInt(value);
+                    break;
+                case "--height":
+                    simulation.height = Integer.parseInt(value);
+                    break;
+                case "--fps":
+                    simulation.fps = Float.parseFloat(value);
+                    break;
+                case "--format":
+                    simulation.format = FrameWriter.Format.fromName(value);
+                    break;
+                case "--threads":
+                    simulation.threads = Integer.parseInt(value);
+                    break;
+                case "--queue":
+                    simulation.queueCapacity = Integer.parseInt(value);
+                    break;
+                case "--kerr":
+                    simulation.useKerr = true;
+                    simulation.spin = Float.parseFloat(value);
+                    break;
+                case "--tolerance":
+                    simulation.geodesicTolerance = Double.parseDouble(value);
+                    break;
+                case "--progressive":
+                    simulation.progressiveBudgetMillis = Long.parseLong(value);
+                    break;
+                case "--threshold":
+                    simulation.refineThreshold = Float.parseFloat(value);
+                    break;
+                case "--stars":
+                    simulation.starCount = Integer.parseInt(value);
+                    break;
+                case "--sky-cache":
+                    simulation.skyFaceSize = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg + "\n" + USAGE);
+            }
+        }
+        if (simulation.frames <= 0 || simulation.fps <= 0.0f || simulation.queueCapacity <= 0
+                || simulation.starCount < 0 || simulation.skyFaceSize < 0 || !(Math.abs(simulation.spin) <= 1.0f)) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        if (simulation.useTemporalCache && simulation.progressiveBudgetMillis > 0) {
+            throw new IllegalArgumentException("--temporal cannot be combined with --progressive\n" + USAGE);
+        }
+        return simulation;
+    }
+
+    /**
+     * 渲染全部帧
+     */
+    public void run() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        BlackHole blackHole = new BlackHole();
+        blackHole.setSpin(spin);
+        Camera camera = new Camera();
+        CameraPath path = new CameraPath();
+        RayMarchRenderer renderer = new RayMarchRenderer(blackHole, width, height, threads);
+        renderer.setUseDeflectionTable(useDeflectionTable);
+        renderer.setUseGeodesicIntegrator(useGeodesicIntegrator);
+        renderer.setUseKerr(useKerr);
+        renderer.setGeodesicTolerance(geodesicTolerance);
+        renderer.setUseNoiseCache(useNoiseCache);
+        renderer.setUseBlackbody(useBlackbody);
+        renderer.setUseDoppler(useDoppler);
+        if (useLod) {
+            renderer.setLodPolicy(new LodPolicy());
+        }
+        if (starCount > 0 || skyFaceSize > 0) {
+            int count = starCount > 0 ? starCount : StarCatalog.DEFAULT_STAR_COUNT;
+            StarCatalog catalog = new StarCatalog(count, STAR_SEED);
+            if (skyFaceSize > 0) {
+                long bakeStart = System.nanoTime();
+                SkyCubeMap skyMap = new SkyCubeMap(skyFaceSize, catalog);
+                renderer.setSkyMap(skyMap);
+                System.out.printf("Baked %dx%d sky cube map (%d levels, %.1f MB) in %.1fs%n",
+                        skyFaceSize, skyFaceSize, skyMap.getLevelCount(), skyMap.getMemoryBytes() / 1048576.0,
+                        (System.nanoTime() - bakeStart) / 1e9);
+            } else {
+                renderer.setStarCatalog(catalog);
+            }
+        }
+        ProgressiveRenderer progressive = null;
+        if (progressiveBudgetMillis > 0) {
+            progressive = new ProgressiveRenderer(renderer);
+            progressive.setThreshold(refineThreshold);
+        }
+        TemporalRenderer temporal = useTemporalCache ? new TemporalRenderer(renderer) : null;
+
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.registerMBeans();
+        MetricsReporter reporter = MetricsReporter.startFromSystemProperties(metrics);
+
+        FrameWriter writer = new FrameWriter(outputDir, format, width, height, queueCapacity, metrics);
+
+        System.out.printf("Headless rendering %d frames (%dx%d, %d threads) to %s%n",
+                frames, width, height, renderer.getThreadCount(), outputDir.getAbsolutePath());
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < frames; i++) {
+                long frameStart = System.nanoTime();
+                float time = i / fps;
+                path.apply(camera, time);
+
+                // 渲染下一帧的同时，编码线程写出之前的帧
+                float[] pixels;
+                if (progressive != null) {
+                    pixels = progressive.render(camera, time, progressiveBudgetMillis * 1_000_000L, null);
+                } else if (temporal != null) {
+                    pixels = temporal.render(camera, time);
+                } else {
+                    pixels = renderer.render(camera, time);
+                }
+                FrameWriter.Frame frame = writer.acquire();
+                frame.setIndex(i);
+                frame.setPixels(pixels);
+                writer.submit(frame);
+                metrics.recordSince(Stage.FRAME, frameStart);
+
+                if ((i + 1) % 10 == 0 || i + 1 == frames) {
+                    if (progressive != null) {
+                        System.out.printf("Rendered %d/%d frames (%d refinement passes%s)%n", i + 1, frames,
+                                progressive.getPass(), progressive.isConverged() ? ", converged" : "");
+                    } else if (temporal != null) {
+                        System.out.printf("Rendered %d/%d frames (%.1f%% of pixels re-marched)%n", i + 1, frames,
+                                100.0 * temporal.getLastFrameRemarched() / (width * height));
+                    } else if (useKerr) {
+                        System.out.printf("Rendered %d/%d frames (%s)%n", i + 1, frames,
+                                renderer.isLastFrameKerrCached() ? "cached Kerr rays" : String.format(
+                                        "%.1f Kerr geodesic evaluations/pixel",
+                                        (double) renderer.getLastFrameGeodesicEvaluations() / (width * height)));
+                    } else if (useGeodesicIntegrator) {
+                        System.out.printf("Rendered %d/%d frames (%.1f geodesic evaluations/pixel)%n", i + 1, frames,
+                                (double) renderer.getLastFrameGeodesicEvaluations() / (width * height));
+                    } else {
+                        System.out.printf("Rendered %d/%d frames%n", i + 1, frames);
+                    }
+                }
+            }
+        } finally {
+            writer.close();
+            renderer.cleanup();
+            if (reporter != null) {
+                reporter.stop();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Done in %.1fs (%.2f frames/s), frame p50: %.1fms, p99: %.1fms%n",
+                seconds, frames / seconds,
+                metrics.getHistogram(Stage.FRAME).getPercentile(50.0) / 1e6,
+                metrics.getHistogram(Stage.FRAME).getPercentile(99.0) / 1e6);
+    }
+}
@@ -20,6 +20,9 @@ public class Camera {
     private float mouseSensitivity;
     private float zoom;
 
+    // 复用的移动方向向量，避免每次输入分配
+    private final Vector3f moveDir = new Vector3f();
+
     /**
      * 相机移动方向枚举
      */
@@ -38,6 +41,9 @@ public class Camera {
     public Camera() {
         position = new Vector3f(0.0f, 2.0f, 12.0f);  // 初始位置，提高视角
         worldUp = new Vector3f(0.0f, 1.0f, 0.0f);
+        front = new Vector3f();
+        right = new Vector3f();
+        up = new Vector3f();
         yaw = -90.0f;    // 朝向负Z轴
         pitch = -15.0f;  // 稍微向下看
         movementSpeed = 8.0f;
@@ -51,8 +57,16 @@ public class Camera {
      * 获取视图矩阵
      */
     public Matrix4f getViewMatrix() {
-        Vector3f target = new Vector3f(position).add(front);
-        return new Matrix4f().lookAt(position, target, up);
+        return getViewMatrix(new Matrix4f());
+    }
+
+    /**
+     * 获取视图矩阵（写入目标矩阵，不分配对象）
+     */
+    public Matrix4f getViewMatrix(Matrix4f dest) {
+        return dest.setLookAt(position.x, position.y, position.z,
+                position.x + front.x, position.y + front.y, position.z + front.z,
+                up.x, up.y, up.z);
     }
 
     /**
@@ -60,7 +74,7 @@ public class Camera {
      */
     public void processKeyboard(Movement direction, float deltaTime) {
         float velocity = movementSpeed * deltaTime;
-        Vector3f moveDir = new Vector3f();
+        moveDir.zero();
 
         switch (direction) {
             case FORWARD:
@@ -127,15 +141,33 @@ public class Camera {
      */
     private void updateCameraVectors() {
         // 计算新的前向量
-        Vector3f newFront = new Vector3f();
-        newFront.x = (float) (Math.cos(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
-        newFront.y = (float) (Math.sin(Math.toRadians(pitch)));
-        newFront.z = (float) (Math.sin(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
-        front = newFront.normalize();
+        front.x = (float) (Math.cos(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
+        front.y = (float) (Math.sin(Math.toRadians(pitch)));
+        front.z = (float) (Math.sin(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
+        front.normalize();
 
         // 重新计算右向量和上向量
-        right = new Vector3f(front).cross(worldUp).normalize();
-        up = new Vector3f(right).cross(front).normalize();
+        front.cross(worldUp, right).normalize();
+        right.cross(front, up).normalize();
+    }
+
+    /**
+     * 将相机朝向指定目标点（用于脚本化相机路径）
+     */
+    public void lookAt(Vector3f target) {
+        float dx = target.x - position.x;
+        float dy = target.y - position.y;
+        float dz = target.z - position.z;
+        float horizontal = (float) Math.sqrt(dx * dx + dz * dz);
+
+        yaw = (float) Math.toDegrees(Math.atan2(dz, dx));
+        pitch = (float) Math.toDegrees(Math.atan2(dy, horizontal));
+
+        // 限制俯仰角范围
+        if (pitch > 89.0f) pitch = 89.0f;
+        if (pitch < -89.0f) pitch = -89.0f;
+
+        updateCameraVectors();
     }
 
     /**
@@ -153,10 +185,34 @@ public class Camera {
         return new Vector3f(position);
     }
 
+    public Vector3f getPosition(Vector3f dest) {
+        return dest.set(position);
+    }
+
     public Vector3f getFront() {
         return new Vector3f(front);
     }
 
+    public Vector3f getFront(Vector3f dest) {
+        return dest.set(front);
+    }
+
+    public Vector3f getRight() {
+        return new Vector3f(right);
+    }
+
+    public Vector3f getRight(Vector3f dest) {
+        return dest.set(right);
+    }
+
+    public Vector3f getUp() {
+        return new Vector3f(up);
+    }
+
+    public Vector3f getUp(Vector3f dest) {
+        return dest.set(up);
+    }
+
     public float getZoom() {
         return zoom;
     }
@@ -0,0 +1,55 @@
+package org.example.core;
+
+import org.joml.Vector3f;
+
+/**
+ * 脚本化相机路径
+ * 相机沿圆形轨道绕目标点运动，并始终朝向目标点
+ */
+public class CameraPath {
+    private final Vector3f target;
+    private final float radius;
+    private final float height;
+    private final float angularSpeed;
+    private final float startAngle;
+
+    // 复用的临时位置，避免每帧分配
+    private final Vector3f position = new Vector3f();
+
+    /**
+     * 构造函数 - 默认轨道（与相机初始位置相同的距离和高度）
+     */
+    public CameraPath() {
+        this(new Vector3f(0.0f, 0.0f, 0.0f), 12.0f, 2.0f, 0.2f);
+    }
+
+    /**
+     * 构造函数 - 自定义轨道
+     *
+     * @param target       观察目标点
+     * @param radius       轨道半径
+     * @param height       轨道高度（相对目标点）
+     * @param angularSpeed 角速度（弧度/秒）
+     */
+    public CameraPath(Vector3f target, float radius, float height, float angularSpeed) {
+        this.target = new Vector3f(target);
+        this.radius = radius;
+        this.height = height;
+        this.angularSpeed = angularSpeed;
+        // 从+Z方向开始，与Camera的初始朝向一致
+        this.startAngle = (float) (Math.PI / 2.0);
+    }
+
+    /**
+     * 将相机放置到给定时间对应的路径位置
+     */
+    public void apply(Camera camera, float time) {
+        float angle = startAngle + angularSpeed * time;
+        position.set(target.x + (float) Math.cos(angle) * radius,
+                target.y + height,
+                target.z + (float) Math.sin(angle) * radius);
+
+        camera.setPosition(position);
+        camera.lookAt(target);
+    }
+}
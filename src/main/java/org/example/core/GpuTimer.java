@@ -0,0 +1,93 @@
+package org.example.core;
+
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.Stage;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * GPU阶段计时器
+ * 用GL计时查询（GL_TIME_ELAPSED）测量绘制命令在GPU上的执行时间，而不是CPU提交命令的时间。
+ * 每个阶段保留若干帧的查询对象轮流使用，结果在几帧之后才回读，回读前检查是否可用，不会阻塞渲染线程
+ */
+public class GpuTimer {
+    // 每个阶段轮流使用的查询对象数（即最多延迟几帧回读）
+    private static final int FRAMES_IN_FLIGHT = 4;
+
+    private final MetricsRegistry metrics;
+    private final Stage[] stages;
+    // 按 [阶段][帧] 排列
+    private final int[] queries;
+    private final boolean[] pending;
+    private int frame;
+    private int active = -1;
+
+    /**
+     * 构造函数 - 为各阶段创建查询对象（需要当前线程持有GL上下文）
+     */
+    public GpuTimer(MetricsRegistry metrics, Stage... stages) {
+        this.metrics = metrics;
+        this.stages = stages.clone();
+        this.queries = new int[stages.length * FRAMES_IN_FLIGHT];
+        this.pending = new boolean[queries.length];
+        glGenQueries(queries);
+    }
+
+    /**
+     * 开始计时一个阶段（同一时刻只能有一个阶段在计时）
+     */
+    public void begin(Stage stage) {
+        int slot = slot(stage);
+        collect(slot);
+        glBeginQuery(GL_TIME_ELAPSED, queries[slot]);
+        active = slot;
+    }
+
+    /**
+     * 结束当前阶段的计时
+     */
+    public void end() {
+        if (active < 0) {
+            throw new IllegalStateException("No GPU stage is being timed");
+        }
+        glEndQuery(GL_TIME_ELAPSED);
+        pending[active] = true;
+        active = -1;
+    }
+
+    /**
+     * 帧结束：切换到下一组查询对象
+     */
+    public void endFrame() {
+        frame = (frame + 1) % FRAMES_IN_FLIGHT;
+    }
+
+    /**
+     * 删除查询对象
+     */
+    public void cleanup() {
+        glDeleteQueries(queries);
+    }
+
+    private int slot(Stage stage) {
+        for (int s = 0; s < stages.length; s++) {
+            if (stages[s] == stage) {
+                return s * FRAMES_IN_FLIGHT + frame;
+            }
+        }
+        throw new IllegalArgumentException("Stage is not timed on the GPU: " + stage);
+    }
+
+    /**
+     * 回读上一轮该查询对象的结果；GPU仍未完成时丢弃这个样本，避免等待
+     */
+    private void collect(int slot) {
+        if (!pending[slot]) {
+            return;
+        }
+        pending[slot] = false;
+        if (glGetQueryObjecti(queries[slot], GL_QUERY_RESULT_AVAILABLE) == GL_TRUE) {
+            metrics.record(stages[slot / FRAMES_IN_FLIGHT], glGetQueryObjecti64(queries[slot], GL_QUERY_RESULT));
+        }
+    }
+}
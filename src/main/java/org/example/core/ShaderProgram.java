@@ -116,11 +116,15 @@ public class ShaderProgram {
     }
 
     /**
-     * 获取uniform位置（带缓存）
+     * 获取uniform位置（带缓存，命中缓存时不分配对象）
      */
     private int getUniformLocation(String uniformName) {
-        return uniforms.computeIfAbsent(uniformName,
-                name -> glGetUniformLocation(programId, name));
+        Integer location = uniforms.get(uniformName);
+        if (location == null) {
+            location = glGetUniformLocation(programId, uniformName);
+            uniforms.put(uniformName, location);
+        }
+        return location;
     }
 
     // ========== Uniform设置方法 ==========
@@ -0,0 +1,122 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图（HDR风格的对数-线性分桶）
+ * 每个2的幂区间再细分为32个子桶，相对误差约3%；记录操作无锁且不分配对象，可被多个线程并发调用
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+    // 可记录的最大值约为2^40纳秒（约18分钟），更大的值计入最后一个桶
+    private static final int MAX_EXPONENT = 40 - SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + MAX_EXPONENT * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 计算百分位数
+     *
+     * @param percentile 百分位（0到100）
+     * @return 对应的耗时（纳秒），无记录时返回0
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketValue(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = totalCount.get();
+        return count == 0 ? 0.0 : (double) totalNanos.get() / count;
+    }
+
+    /**
+     * 清空全部记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * 数值所在桶的索引
+     */
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> exponent) & (SUB_BUCKET_COUNT - 1);
+        return LINEAR_LIMIT + (exponent - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * 桶的代表值（区间上界）
+     */
+    static long bucketValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+        long lower = (long) (SUB_BUCKET_COUNT + subBucket) << exponent;
+        return lower + (1L << exponent) - 1;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 性能指标注册表
+ * 为每个帧阶段维护一个延迟直方图；记录路径无锁、不分配对象，可在渲染线程和工作线程中直接调用
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final LatencyHistogram[] histograms;
+
+    /**
+     * 构造函数 - 为全部阶段创建直方图
+     */
+    public MetricsRegistry() {
+        Stage[] stages = Stage.values();
+        histograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 进程级默认注册表
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param stage      阶段
+     * @param startNanos 阶段开始时的System.nanoTime()
+     */
+    public void recordSince(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 记录阶段耗时
+     */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * 清空全部阶段的记录
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 将各阶段注册为JMX MBean（org.example:type=Metrics,stage=...），已注册时跳过
+     */
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Stage stage : Stage.values()) {
+            try {
+                ObjectName name = new ObjectName("org.example:type=Metrics,stage=" + stage.name());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new StageMetrics(getHistogram(stage)), name);
+                }
+            } catch (JMException e) {
+                System.err.println("Could not register metrics MBean for " + stage + ": " + e.getMessage());
+            }
+        }
+    }
+}
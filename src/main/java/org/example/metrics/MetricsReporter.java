@@ -0,0 +1,146 @@
+package org.example.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 周期性指标转储
+ * 按固定间隔把各阶段的次数、均值和p50/p95/p99/最大值追加写入CSV或JSON Lines文件
+ */
+public class MetricsReporter {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final MetricsRegistry registry;
+    private final File file;
+    private final boolean json;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 构造函数
+     *
+     * @param file 输出文件，扩展名为.json时写JSON Lines，否则写CSV
+     */
+    public MetricsReporter(MetricsRegistry registry, File file) {
+        this.registry = registry;
+        this.file = file;
+        this.json = file.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 按系统属性启动转储：blackhole.metrics.file指定输出文件，blackhole.metrics.interval指定间隔秒数
+     *
+     * @return 启动的转储器，未配置时返回null
+     */
+    public static MetricsReporter startFromSystemProperties(MetricsRegistry registry) {
+        String path = System.getProperty("blackhole.metrics.file");
+        if (path == null) {
+            return null;
+        }
+        long interval = Long.getLong("blackhole.metrics.interval", 10L);
+        MetricsReporter reporter = new MetricsReporter(registry, new File(path));
+        reporter.start(interval, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    /**
+     * 开始周期性转储
+     */
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleAtFixedRate(this::reportSafely, interval, interval, unit);
+    }
+
+    /**
+     * 停止转储并写出最后一次结果
+     */
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reportSafely();
+    }
+
+    private void reportSafely() {
+        try {
+            report();
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 立即追加写入一次当前指标
+     */
+    public synchronized void report() throws IOException {
+        boolean writeHeader = !json && (!file.exists() || file.length() == 0);
+        long timestamp = System.currentTimeMillis();
+
+        try (Writer writer = new FileWriter(file, true)) {
+            if (json) {
+                writer.write(formatJson(timestamp));
+            } else {
+                if (writeHeader) {
+                    writer.write("timestamp,stage,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms\n");
+                }
+                writer.write(formatCsv(timestamp));
+            }
+        }
+    }
+
+    private String formatCsv(long timestamp) {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = registry.getHistogram(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.ROOT, "%d,%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+                    timestamp, stage.name(), histogram.getCount(),
+                    histogram.getMeanNanos() / NANOS_PER_MILLI,
+                    histogram.getPercentile(50.0) / NANOS_PER_MILLI,
+                    histogram.getPercentile(95.0) / NANOS_PER_MILLI,
+                    histogram.getPercentile(99.0) / NANOS_PER_MILLI,
+                    histogram.getMaxNanos() / NANOS_PER_MILLI));
+        }
+        return builder.toString();
+    }
+
+    private String formatJson(long timestamp) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"timestamp\":").append(timestamp).append(",\"stages\":{");
+        boolean first = true;
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = registry.getHistogram(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"count\":%d,\"meanMs\":%.4f,\"p50Ms\":%.4f,\"p95Ms\":%.4f,\"p99Ms\":%.4f,\"maxMs\":%.4f}",
+                    stage.name(), histogram.getCount(),
+                    histogram.getMeanNanos() / NANOS_PER_MILLI,
+                    histogram.getPercentile(50.0) / NANOS_PER_MILLI,
+                    histogram.getPercentile(95.0) / NANOS_PER_MILLI,
+                    histogram.getPercentile(99.0) / NANOS_PER_MILLI,
+                    histogram.getMaxNanos() / NANOS_PER_MILLI));
+        }
+        builder.append("}}\n");
+        return builder.toString();
+    }
+}
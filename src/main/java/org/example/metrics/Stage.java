@@ -0,0 +1,27 @@
+package org.example.metrics;
+
+/**
+ * 被计时的帧阶段
+ */
+public enum Stage {
+    // 整帧耗时
+    FRAME,
+    // 输入处理
+    INPUT,
+    // 相机矩阵和uniform设置
+    UNIFORMS,
+    // 黑洞绘制（GPU执行时间，由GL计时查询测得，延迟几帧记录）
+    BLACK_HOLE_DRAW,
+    // 星空绘制（GPU执行时间，同上）
+    STAR_DRAW,
+    // 吸积盘粒子更新
+    DISK_UPDATE,
+    // CPU渲染单个图块
+    RENDER_TILE,
+    // CPU渲染整帧
+    CPU_RENDER,
+    // 帧编码写出
+    FRAME_ENCODE,
+    // 粒子轨迹分块压缩写出
+    TRAJECTORY_ENCODE
+}
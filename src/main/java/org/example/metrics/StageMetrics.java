@@ -0,0 +1,49 @@
+package org.example.metrics;
+
+/**
+ * 单个阶段的JMX视图，直接读取对应的直方图
+ */
+class StageMetrics implements StageMetricsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LatencyHistogram histogram;
+
+    StageMetrics(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return histogram.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return histogram.getPercentile(50.0) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return histogram.getPercentile(95.0) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return histogram.getPercentile(99.0) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return histogram.getMaxNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.metrics;
+
+/**
+ * 单个阶段的JMX管理接口（时间单位为毫秒）
+ */
+public interface StageMetricsMBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,234 @@
+package org.example.render;
+
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.Stage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 帧输出器
+ * 渲染线程与编码线程通过有界队列交接帧，帧缓冲在两者之间循环复用，
+ * 因此无论输出多少帧，内存占用都只取决于队列容量
+ */
+public class FrameWriter {
+
+    /**
+     * 输出图像格式
+     */
+    public enum Format {
+        PNG("png"),
+        PPM("ppm");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported image format: " + name);
+        }
+    }
+
+    /**
+     * 帧缓冲 - 由写出器持有并循环复用
+     */
+    public static final class Frame {
+        private final BufferedImage image;
+        private final int[] rgb;
+        private int index;
+
+        private Frame(int width, int height) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        /**
+         * 从渲染器的浮点RGB像素填充帧（截断到[0, 1]后量化为8位）
+         */
+        public void setPixels(float[] pixels) {
+            for (int i = 0, p = 0; i < rgb.length; i++, p += 3) {
+                rgb[i] = (toByte(pixels[p]) << 16) | (toByte(pixels[p + 1]) << 8) | toByte(pixels[p + 2]);
+            }
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        private static int toByte(float value) {
+            if (!(value > 0.0f)) {
+                return 0;
+            }
+            return value >= 1.0f ? 255 : (int) (value * 255.0f + 0.5f);
+        }
+    }
+
+    // 结束标记
+    private static final Frame END_OF_STREAM = new Frame(1, 1);
+
+    private final File outputDir;
+    private final Format format;
+    private final BlockingQueue<Frame> pending;
+    private final BlockingQueue<Frame> free;
+    private final Thread thread;
+    private final MetricsRegistry metrics;
+
+    private volatile IOException failure;
+
+    /**
+     * 构造函数 - 编码耗时记录到默认指标注册表
+     *
+     * @param capacity 同时存在的帧缓冲数量
+     */
+    public FrameWriter(File outputDir, Format format, int width, int height, int capacity) throws IOException {
+        this(outputDir, format, width, height, capacity, MetricsRegistry.getDefault());
+    }
+
+    /**
+     * 构造函数 - 创建帧缓冲池并启动编码线程
+     *
+     * @param capacity 同时存在的帧缓冲数量
+     * @param metrics  记录编码耗时的指标注册表
+     */
+    public FrameWriter(File outputDir, Format format, int width, int height, int capacity,
+                       MetricsRegistry metrics) throws IOException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Could not create output directory: " + outputDir);
+        }
+        this.outputDir = outputDir;
+        this.format = format;
+        this.metrics = metrics;
+        this.pending = new ArrayBlockingQueue<>(capacity + 1);
+        this.free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.add(new Frame(width, height));
+        }
+
+        this.thread = new Thread(this::drain, "frame-writer");
+        this.thread.start();
+    }
+
+    /**
+     * 获取空闲帧缓冲（编码线程落后时阻塞）
+     */
+    public Frame acquire() throws IOException, InterruptedException {
+        checkFailure();
+        return free.take();
+    }
+
+    /**
+     * 提交帧等待编码
+     */
+    public void submit(Frame frame) throws IOException, InterruptedException {
+        checkFailure();
+        pending.put(frame);
+    }
+
+    /**
+     * 等待所有已提交的帧写出并结束编码线程
+     */
+    public void close() throws IOException, InterruptedException {
+        pending.put(END_OF_STREAM);
+        thread.join();
+        checkFailure();
+    }
+
+    /**
+     * 编码线程主循环
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Frame frame = pending.take();
+                if (frame == END_OF_STREAM) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        long start = System.nanoTime();
+                        write(frame);
+                        metrics.recordSince(Stage.FRAME_ENCODE, start);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException | Error e) {
+                    // 编码器内部异常同样记为失败，由acquire/submit/close抛给渲染线程
+                    failure = new IOException("Could not write frame " + frame.index, e);
+                } finally {
+                    // 帧缓冲必须归还，否则acquire会永久阻塞
+                    free.put(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 将单帧写入文件
+     */
+    private void write(Frame frame) throws IOException {
+        File file = new File(outputDir, String.format("frame_%05d.%s", frame.index, format.getExtension()));
+        switch (format) {
+            case PNG:
+                if (!ImageIO.write(frame.image, "png", file)) {
+                    throw new IOException("No PNG encoder available");
+                }
+                break;
+            case PPM:
+                writePpm(frame, file);
+                break;
+        }
+    }
+
+    /**
+     * 写出二进制PPM（P6）
+     */
+    private void writePpm(Frame frame, File file) throws IOException {
+        int width = frame.image.getWidth();
+        int height = frame.image.getHeight();
+        byte[] row = new byte[width * 3];
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            out.write(String.format("P6\n%d %d\n255\n", width, height).getBytes("US-ASCII"));
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, p = y * width; x < width; x++, p++) {
+                    int color = frame.rgb[p];
+                    row[x * 3] = (byte) (color >> 16);
+                    row[x * 3 + 1] = (byte) (color >> 8);
+                    row[x * 3 + 2] = (byte) color;
+                }
+                out.write(row);
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.render;
+
+/**
+ * 逐像素的克尔光线结局缓存
+ * 克尔测地线的积分代价是史瓦西的数倍，但光线结局只取决于相机位姿、投影参数和黑洞参数（质量、自旋、吸积盘范围），
+ * 与时间无关。只有时间变化的动画帧直接读取缓存的结局（出射方向或吸积盘命中点），按当前时间重新着色，不再积分
+ */
+final class KerrRayCache {
+    // 结局及其参数：逃逸时(a, b, c)为出射方向，吸积盘命中时为(x, z, 离盘面高度)，d为频移因子
+    private final byte[] outcome;
+    private final float[] a;
+    private final float[] b;
+    private final float[] c;
+    private final float[] d;
+
+    // 写入缓存的帧参数，为null时缓存无效
+    private RayMarchRenderer.FrameState key;
+
+    KerrRayCache(int pixels) {
+        this.outcome = new byte[pixels];
+        this.a = new float[pixels];
+        this.b = new float[pixels];
+        this.c = new float[pixels];
+        this.d = new float[pixels];
+    }
+
+    /**
+     * 缓存的结局是否适用于该帧（只允许时间不同）
+     * 积分器在质量、自旋或误差容限变化时重建，轨道速度表在黑洞或吸积盘参数变化时重建，比较实例即可
+     */
+    boolean matches(RayMarchRenderer.FrameState frame) {
+        RayMarchRenderer.FrameState cached = key;
+        return cached != null
+                && cached.kerrIntegrator == frame.kerrIntegrator
+                && cached.orbitTable == frame.orbitTable
+                && cached.camX == frame.camX && cached.camY == frame.camY && cached.camZ == frame.camZ
+                && cached.frontX == frame.frontX && cached.frontY == frame.frontY && cached.frontZ == frame.frontZ
+                && cached.rightX == frame.rightX && cached.rightY == frame.rightY && cached.rightZ == frame.rightZ
+                && cached.upX == frame.upX && cached.upY == frame.upY && cached.upZ == frame.upZ
+                && cached.tanHalfFov == frame.tanHalfFov
+                && cached.aspect == frame.aspect
+                && cached.holeX == frame.holeX && cached.holeY == frame.holeY && cached.holeZ == frame.holeZ
+                && cached.innerDiskRadius == frame.innerDiskRadius
+                && cached.outerDiskRadius == frame.outerDiskRadius
+                && cached.lodPolicy == frame.lodPolicy;
+    }
+
+    /**
+     * 开始重新填充前使缓存失效
+     */
+    void invalidate() {
+        key = null;
+    }
+
+    /**
+     * 整帧写入完成后以该帧参数为键启用缓存
+     */
+    void commit(RayMarchRenderer.FrameState frame) {
+        key = frame;
+    }
+
+    void store(int index, RayMarchRenderer.RayScratch hit) {
+        outcome[index] = (byte) hit.outcome;
+        if (hit.outcome == RayMarchRenderer.RayScratch.ESCAPED) {
+            a[index] = hit.exitX;
+            b[index] = hit.exitY;
+            c[index] = hit.exitZ;
+        } else if (hit.outcome == RayMarchRenderer.RayScratch.DISK) {
+            a[index] = hit.diskX;
+            b[index] = hit.diskZ;
+            c[index] = hit.diskHeight;
+            d[index] = hit.diskRedshift;
+        }
+    }
+
+    void load(int index, RayMarchRenderer.RayScratch hit) {
+        int recorded = outcome[index];
+        if (recorded == RayMarchRenderer.RayScratch.ESCAPED) {
+            hit.recordEscape(a[index], b[index], c[index]);
+        } else if (recorded == RayMarchRenderer.RayScratch.DISK) {
+            hit.recordDisk(a[index], b[index], c[index], d[index]);
+        } else {
+            hit.outcome = recorded;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.render;
+
+/**
+ * 光线步进的距离LOD策略
+ * 按未偏折视线到黑洞的最近距离（碰撞参数）分配算力：
+ * 远离吸积盘的光线不步进、直接取背景；其余光线从LOD球面开始步进，
+ * 步数预算随透镜强度增加，离开LOD球面向外运动后即视为逃逸
+ */
+public class LodPolicy {
+    // 着色器自适应步长的上限
+    private static final float MAX_STEP_SIZE = 0.3f;
+
+    // LOD球半径（吸积盘外半径的倍数）
+    private float radiusFactor = 1.5f;
+    // 碰撞参数不超过该值（事件视界半径的倍数）时使用完整步数预算
+    private float strongLensingFactor = 2.6f;
+    // 弱透镜光线的最低步数
+    private int minSteps = 40;
+    // 几何路径步数的余量
+    private float pathMargin = 1.25f;
+
+    /**
+     * LOD球半径
+     */
+    public float radius(float outerDiskRadius) {
+        return radiusFactor * outerDiskRadius;
+    }
+
+    /**
+     * 步数预算
+     *
+     * @param impactParameter    未偏折视线到黑洞的最近距离
+     * @param pathLength         未偏折视线在LOD球内的长度
+     * @param eventHorizonRadius 事件视界半径
+     */
+    public int stepBudget(float impactParameter, float pathLength, float eventHorizonRadius) {
+        float strength = Math.min(strongLensingFactor * eventHorizonRadius / Math.max(impactParameter, 1e-6f), 1.0f);
+        int lensing = minSteps + Math.round((RayMarchRenderer.MAX_STEPS - minSteps) * strength);
+        int geometric = (int) Math.ceil(pathLength / MAX_STEP_SIZE * pathMargin);
+        return Math.min(Math.max(lensing, geometric), RayMarchRenderer.MAX_STEPS);
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public float getRadiusFactor() {
+        return radiusFactor;
+    }
+
+    /**
+     * 设置LOD球半径相对吸积盘外半径的倍数
+     */
+    public void setRadiusFactor(float radiusFactor) {
+        this.radiusFactor = radiusFactor;
+    }
+
+    public float getStrongLensingFactor() {
+        return strongLensingFactor;
+    }
+
+    public void setStrongLensingFactor(float strongLensingFactor) {
+        this.strongLensingFactor = strongLensingFactor;
+    }
+
+    public int getMinSteps() {
+        return minSteps;
+    }
+
+    public void setMinSteps(int minSteps) {
+        this.minSteps = minSteps;
+    }
+
+    public float getPathMargin() {
+        return pathMargin;
+    }
+
+    public void setPathMargin(float pathMargin) {
+        this.pathMargin = pathMargin;
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.render;
+
+import java.util.stream.IntStream;
+
+import static org.example.render.ShaderMath.mix;
+
+/**
+ * 预烘焙的可平铺FBM噪声纹理
+ * 吸积盘着色每个样本要调用两次fbm()，共32次hash及其sin运算；
+ * 这里启动时按周期格点烘焙一次(φ, r)噪声纹理，采样时双线性插值，随时间平移UV实现动画，
+ * 每个样本只需几次内存读取
+ */
+public class NoiseCache {
+    // 与ShaderMath.fbm()相同的倍频程数
+    public static final int OCTAVES = 4;
+
+    // 方位角方向周期：u·6和u·12在一圈内恰好覆盖整数个周期，吸积盘上没有接缝
+    public static final int DEFAULT_PERIOD_X = 6;
+    public static final int DEFAULT_PERIOD_Y = 24;
+    // 每单位噪声坐标的纹素数（最高倍频程每个格点4个纹素）
+    public static final int DEFAULT_TEXELS_PER_UNIT = 32;
+
+    private final int periodX;
+    private final int periodY;
+    private final boolean octaveBands;
+    // 每层纹理的尺寸与分辨率；合并模式只有一层
+    private final int[] layerWidth;
+    private final int[] layerHeight;
+    private final float[] layerScale;
+    private final float[][] layers;
+
+    /**
+     * 构造函数 - 默认周期和分辨率，所有倍频程合并为一层
+     */
+    public NoiseCache() {
+        this(DEFAULT_PERIOD_X, DEFAULT_PERIOD_Y, DEFAULT_TEXELS_PER_UNIT, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param periodX       横向周期（噪声坐标单位，整数）
+     * @param periodY       纵向周期
+     * @param texelsPerUnit 每单位噪声坐标的纹素数（合并层及最高倍频程）
+     * @param octaveBands   是否按倍频程分层烘焙：低频层分辨率按频率降低，且可只采样前几层
+     */
+    public NoiseCache(int periodX, int periodY, int texelsPerUnit, boolean octaveBands) {
+        if (periodX <= 0 || periodY <= 0 || texelsPerUnit <= 0) {
+            throw new IllegalArgumentException("Invalid noise cache size: " + periodX + "x" + periodY
+                    + " at " + texelsPerUnit + " texels per unit");
+        }
+        this.periodX = periodX;
+        this.periodY = periodY;
+        this.octaveBands = octaveBands;
+
+        int layerCount = octaveBands ? OCTAVES : 1;
+        this.layerWidth = new int[layerCount];
+        this.layerHeight = new int[layerCount];
+        this.layerScale = new float[layerCount];
+        this.layers = new float[layerCount][];
+        for (int layer = 0; layer < layerCount; layer++) {
+            // 分层模式下第k层频率为2^k，分辨率相应减半
+            int texels = octaveBands ? Math.max(texelsPerUnit >> (OCTAVES - 1 - layer), 1) : texelsPerUnit;
+            layerWidth[layer] = periodX * texels;
+            layerHeight[layer] = periodY * texels;
+            layerScale[layer] = texels;
+            layers[layer] = new float[layerWidth[layer] * layerHeight[layer]];
+            bake(layer);
+        }
+    }
+
+    /**
+     * 烘焙一层纹理（纹素中心采样）
+     */
+    private void bake(int layer) {
+        int width = layerWidth[layer];
+        float[] texels = layers[layer];
+        float scale = layerScale[layer];
+        IntStream.range(0, layerHeight[layer]).parallel().forEach(row -> {
+            float y = (row + 0.5f) / scale;
+            for (int column = 0; column < width; column++) {
+                float x = (column + 0.5f) / scale;
+                texels[row * width + column] = octaveBands ? octave(layer, x, y) : periodicFbm(x, y);
+            }
+        });
+    }
+
+    /**
+     * 周期FBM - 与ShaderMath.fbm()相同的倍频程叠加，格点哈希按周期取模
+     */
+    private float periodicFbm(float x, float y) {
+        float value = 0.0f;
+        for (int i = 0; i < OCTAVES; i++) {
+            value += octave(i, x, y);
+        }
+        return value;
+    }
+
+    /**
+     * 单个倍频程（含振幅）
+     */
+    private float octave(int index, float x, float y) {
+        int frequency = 1 << index;
+        float amplitude = 0.5f / frequency;
+        return amplitude * periodicNoise(frequency * x, frequency * y, periodX * frequency, periodY * frequency);
+    }
+
+    /**
+     * 周期值噪声 - 与ShaderMath.noise()相同的插值，格点坐标按周期取模
+     */
+    private static float periodicNoise(float x, float y, int periodX, int periodY) {
+        float ix = (float) Math.floor(x);
+        float iy = (float) Math.floor(y);
+        float fx = x - ix;
+        float fy = y - iy;
+        fx = fx * fx * (3.0f - 2.0f * fx);
+        fy = fy * fy * (3.0f - 2.0f * fy);
+
+        int x0 = Math.floorMod((int) ix, periodX);
+        int y0 = Math.floorMod((int) iy, periodY);
+        int x1 = (x0 + 1) % periodX;
+        int y1 = (y0 + 1) % periodY;
+
+        float a = ShaderMath.hash(x0, y0);
+        float b = ShaderMath.hash(x1, y0);
+        float c = ShaderMath.hash(x0, y1);
+        float d = ShaderMath.hash(x1, y1);
+
+        return mix(mix(a, b, fx), mix(c, d, fx), fy);
+    }
+
+    /**
+     * 采样FBM（全部倍频程）- 可代替ShaderMath.fbm()，坐标超出周期时平铺
+     */
+    public float fbm(float x, float y) {
+        if (!octaveBands) {
+            return sample(0, x, y);
+        }
+        return fbm(x, y, OCTAVES);
+    }
+
+    /**
+     * 只采样前若干个倍频程（仅分层模式下有效，合并模式总是返回全部倍频程）
+     */
+    public float fbm(float x, float y, int octaves) {
+        if (!octaveBands) {
+            return sample(0, x, y);
+        }
+        float value = 0.0f;
+        for (int layer = 0; layer < Math.min(octaves, OCTAVES); layer++) {
+            value += sample(layer, x, y);
+        }
+        return value;
+    }
+
+    /**
+     * 双线性采样一层纹理（周期环绕）
+     */
+    private float sample(int layer, float x, float y) {
+        int width = layerWidth[layer];
+        int height = layerHeight[layer];
+        float[] texels = layers[layer];
+
+        // 纹素中心位于(i + 0.5) / scale
+        float tx = x * layerScale[layer] - 0.5f;
+        float ty = y * layerScale[layer] - 0.5f;
+        float floorX = (float) Math.floor(tx);
+        float floorY = (float) Math.floor(ty);
+        float fx = tx - floorX;
+        float fy = ty - floorY;
+
+        int x0 = Math.floorMod((int) floorX, width);
+        int y0 = Math.floorMod((int) floorY, height);
+        int x1 = x0 + 1 == width ? 0 : x0 + 1;
+        int row0 = y0 * width;
+        int row1 = (y0 + 1 == height ? 0 : y0 + 1) * width;
+
+        return mix(mix(texels[row0 + x0], texels[row0 + x1], fx),
+                mix(texels[row1 + x0], texels[row1 + x1], fx), fy);
+    }
+
+    public int getPeriodX() {
+        return periodX;
+    }
+
+    public int getPeriodY() {
+        return periodY;
+    }
+
+    public boolean isOctaveBands() {
+        return octaveBands;
+    }
+
+    /**
+     * 纹理占用的字节数
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (float[] layer : layers) {
+            bytes += (long) layer.length * Float.BYTES;
+        }
+        return bytes;
+    }
+}
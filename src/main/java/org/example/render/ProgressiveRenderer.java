@@ -0,0 +1,338 @@
+package org.example.render;
+
+import org.example.core.Camera;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 渐进式CPU渲染器
+ * 首遍每4x4像素块只追踪一条光线，随后每一遍只在相邻块颜色差异超过阈值处加密采样：
+ * 先逐级细分到2x2、1x1像素块，再对仍有差异的像素（光子环、吸积盘边缘、视界轮廓）做分层超采样；
+ * 每遍结束后像素缓冲区都是完整图像，可随时显示或写出，按时间预算或收敛阈值停止
+ */
+public class ProgressiveRenderer {
+    // 首遍像素块边长
+    public static final int COARSE_BLOCK_SIZE = 4;
+
+    // 每个任务至少处理的单元行数
+    private static final int ROWS_PER_TASK = 4;
+
+    /**
+     * 每遍结束时的回调
+     */
+    public interface PassListener {
+        /**
+         * @param pass   遍序号（0为粗略预览）
+         * @param pixels 当前图像，格式同RayMarchRenderer.render()的返回值
+         */
+        void onPass(int pass, float[] pixels);
+    }
+
+    private final RayMarchRenderer renderer;
+    private final int width;
+    private final int height;
+    private final float[] pixels;
+    private final boolean[] refineFlags;
+    private final AtomicInteger refinedCount = new AtomicInteger();
+
+    // 相邻颜色（色调映射后任一通道）差异超过该值时加密采样
+    private float threshold = 0.1f;
+    // 每像素最多n×n个样本
+    private int maxSupersampling = 4;
+
+    private RayMarchRenderer.FrameState frame;
+    private int pass;
+    private int blockSize;
+    private int supersampling;
+    private boolean converged;
+
+    /**
+     * 构造函数 - 复用渲染器的参数和线程池
+     */
+    public ProgressiveRenderer(RayMarchRenderer renderer) {
+        this.renderer = renderer;
+        this.width = renderer.getWidth();
+        this.height = renderer.getHeight();
+        this.pixels = new float[width * height * 3];
+        this.refineFlags = new boolean[width * height];
+    }
+
+    /**
+     * 在时间预算内渐进渲染一帧
+     *
+     * @param budgetNanos 时间预算（纳秒）；粗略预览总会完成，之后每遍开始前检查预算
+     * @param listener    每遍结束的回调，可为null
+     * @return 像素数组（与getPixels()相同）
+     */
+    public float[] render(Camera camera, float time, long budgetNanos, PassListener listener) {
+        long deadline = System.nanoTime() + budgetNanos;
+        begin(camera, time);
+        if (listener != null) {
+            listener.onPass(pass, pixels);
+        }
+        while (!converged && System.nanoTime() - deadline < 0) {
+            if (refine() && listener != null) {
+                listener.onPass(pass, pixels);
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * 开始新的一帧：每4x4像素块追踪一条光线
+     */
+    public void begin(Camera camera, float time) {
+        frame = renderer.prepareFrame(camera, time);
+        pass = 0;
+        blockSize = COARSE_BLOCK_SIZE;
+        supersampling = 1;
+        converged = false;
+        refinedCount.set(0);
+        runPass(Phase.COARSE, blockSize);
+    }
+
+    /**
+     * 执行下一遍加密
+     *
+     * @return 是否执行了新的一遍；已收敛时返回false
+     */
+    public boolean refine() {
+        if (frame == null) {
+            throw new IllegalStateException("begin() must be called before refine()");
+        }
+        if (converged) {
+            return false;
+        }
+
+        Phase phase;
+        int cellSize;
+        if (blockSize > 1) {
+            phase = Phase.SUBDIVIDE;
+            cellSize = blockSize;
+        } else if (supersampling * 2 <= maxSupersampling) {
+            phase = Phase.SUPERSAMPLE;
+            cellSize = 1;
+        } else {
+            converged = true;
+            return false;
+        }
+
+        refinedCount.set(0);
+        runPass(Phase.MARK, cellSize);
+        runPass(phase, cellSize);
+        pass++;
+        if (phase == Phase.SUBDIVIDE) {
+            blockSize /= 2;
+        } else {
+            supersampling *= 2;
+        }
+
+        // 没有任何单元需要加密时，更细的遍也不会改变图像
+        if (refinedCount.get() == 0) {
+            converged = true;
+        }
+        return true;
+    }
+
+    private void runPass(Phase phase, int cellSize) {
+        int rows = (height + cellSize - 1) / cellSize;
+        renderer.getPool().invoke(new PassTask(phase, cellSize, 0, rows));
+    }
+
+    /**
+     * 处理一行单元
+     */
+    private void processRow(Phase phase, int cellSize, int row) {
+        RayMarchRenderer.RayScratch scratch = renderer.scratch();
+        int columns = (width + cellSize - 1) / cellSize;
+        int y0 = row * cellSize;
+        int refined = 0;
+        for (int column = 0; column < columns; column++) {
+            int x0 = column * cellSize;
+            switch (phase) {
+                case COARSE:
+                    fillBlock(scratch, x0, y0, cellSize);
+                    refined++;
+                    break;
+                case MARK:
+                    refineFlags[y0 * width + x0] = differsFromNeighbours(x0, y0, cellSize);
+                    break;
+                case SUBDIVIDE:
+                    if (refineFlags[y0 * width + x0]) {
+                        int half = cellSize / 2;
+                        fillBlock(scratch, x0, y0, half);
+                        fillBlock(scratch, x0 + half, y0, half);
+                        fillBlock(scratch, x0, y0 + half, half);
+                        fillBlock(scratch, x0 + half, y0 + half, half);
+                        refined++;
+                    }
+                    break;
+                case SUPERSAMPLE:
+                    if (refineFlags[y0 * width + x0]) {
+                        supersamplePixel(scratch, x0, y0, supersampling * 2);
+                        refined++;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown phase: " + phase);
+            }
+        }
+        if (refined > 0) {
+            refinedCount.addAndGet(refined);
+        }
+    }
+
+    /**
+     * 在块中心追踪一条光线并填满整个块（越过图像边界的部分被裁剪）
+     */
+    private void fillBlock(RayMarchRenderer.RayScratch scratch, int x0, int y0, int size) {
+        if (x0 >= width || y0 >= height) {
+            return;
+        }
+        int x1 = Math.min(x0 + size, width);
+        int y1 = Math.min(y0 + size, height);
+        int offset = (y0 * width + x0) * 3;
+        renderer.sample(frame, scratch, (x0 + x1) * 0.5f, (y0 + y1) * 0.5f, pixels, offset);
+        boolean escaped = scratch.outcome == RayMarchRenderer.RayScratch.ESCAPED;
+
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int target = (y * width + x) * 3;
+                if (escaped) {
+                    // 星空是逐像素的屏幕空间哈希，沿用块内光线的出射方向逐像素求值
+                    renderer.shadeRecorded(frame, scratch, x + 0.5f, y + 0.5f, pixels, target);
+                } else if (target != offset) {
+                    pixels[target] = pixels[offset];
+                    pixels[target + 1] = pixels[offset + 1];
+                    pixels[target + 2] = pixels[offset + 2];
+                }
+            }
+        }
+    }
+
+    /**
+     * 像素内n×n分层超采样，结果取平均
+     */
+    private void supersamplePixel(RayMarchRenderer.RayScratch scratch, int x0, int y0, int n) {
+        float[] color = scratch.color;
+        float r = 0.0f;
+        float g = 0.0f;
+        float b = 0.0f;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                renderer.sample(frame, scratch, x0 + (i + 0.5f) / n, y0 + (j + 0.5f) / n, color, 0);
+                r += color[0];
+                g += color[1];
+                b += color[2];
+            }
+        }
+        float inverseCount = 1.0f / (n * n);
+        int offset = (y0 * width + x0) * 3;
+        pixels[offset] = r * inverseCount;
+        pixels[offset + 1] = g * inverseCount;
+        pixels[offset + 2] = b * inverseCount;
+    }
+
+    /**
+     * 比较单元与上下左右相邻单元的颜色（单元内颜色一致，取左上角像素）
+     */
+    private boolean differsFromNeighbours(int x0, int y0, int cellSize) {
+        int offset = (y0 * width + x0) * 3;
+        return (x0 >= cellSize && differs(offset, offset - cellSize * 3))
+                || (x0 + cellSize < width && differs(offset, offset + cellSize * 3))
+                || (y0 >= cellSize && differs(offset, offset - cellSize * width * 3))
+                || (y0 + cellSize < height && differs(offset, offset + cellSize * width * 3));
+    }
+
+    private boolean differs(int a, int b) {
+        return Math.abs(pixels[a] - pixels[b]) > threshold
+                || Math.abs(pixels[a + 1] - pixels[b + 1]) > threshold
+                || Math.abs(pixels[a + 2] - pixels[b + 2]) > threshold;
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public float[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * 已完成的加密遍数（0表示只有粗略预览）
+     */
+    public int getPass() {
+        return pass;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * 上一遍加密的单元数
+     */
+    public int getRefinedCount() {
+        return refinedCount.get();
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 设置收敛阈值：相邻颜色差异都不超过该值时停止加密
+     */
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getMaxSupersampling() {
+        return maxSupersampling;
+    }
+
+    /**
+     * 设置每像素最高超采样率（n×n，n为2的幂；1表示不超采样）
+     */
+    public void setMaxSupersampling(int maxSupersampling) {
+        this.maxSupersampling = maxSupersampling;
+    }
+
+    /**
+     * 单遍中的处理阶段
+     */
+    private enum Phase {
+        COARSE,
+        MARK,
+        SUBDIVIDE,
+        SUPERSAMPLE
+    }
+
+    /**
+     * 单元行任务 - 递归二分行区间
+     */
+    private final class PassTask extends RecursiveAction {
+        private final Phase phase;
+        private final int cellSize;
+        private final int from;
+        private final int to;
+
+        PassTask(Phase phase, int cellSize, int from, int to) {
+            this.phase = phase;
+            this.cellSize = cellSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int row = from; row < to; row++) {
+                    processRow(phase, cellSize, row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PassTask(phase, cellSize, from, mid), new PassTask(phase, cellSize, mid, to));
+        }
+    }
+}
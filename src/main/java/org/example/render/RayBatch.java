@@ -0,0 +1,55 @@
+package org.example.render;
+
+/**
+ * 光线批次（结构数组布局）
+ * 一个图块内需要步进的光线打包在连续数组中，供批量步进内核按SIMD通道处理
+ */
+final class RayBatch {
+    // 步进结果
+    static final float EXHAUSTED = 0.0f;
+    static final float CAPTURED = 1.0f;
+    static final float DISK = 2.0f;
+    static final float ESCAPED = 3.0f;
+
+    // 输入：初始方向；输出：逃逸光线的最终方向
+    final float[] dirX;
+    final float[] dirY;
+    final float[] dirZ;
+    // 输出：终止位置
+    final float[] posX;
+    final float[] posY;
+    final float[] posZ;
+    // 输出：步进结果
+    final float[] state;
+    // 像素坐标与输出偏移
+    final float[] fragX;
+    final float[] fragY;
+    final int[] offset;
+    int count;
+
+    RayBatch(int capacity) {
+        dirX = new float[capacity];
+        dirY = new float[capacity];
+        dirZ = new float[capacity];
+        posX = new float[capacity];
+        posY = new float[capacity];
+        posZ = new float[capacity];
+        state = new float[capacity];
+        fragX = new float[capacity];
+        fragY = new float[capacity];
+        offset = new int[capacity];
+    }
+
+    /**
+     * 追加一条光线
+     */
+    void add(float dx, float dy, float dz, float fx, float fy, int pixelOffset) {
+        dirX[count] = dx;
+        dirY[count] = dy;
+        dirZ[count] = dz;
+        fragX[count] = fx;
+        fragY[count] = fy;
+        offset[count] = pixelOffset;
+        count++;
+    }
+}
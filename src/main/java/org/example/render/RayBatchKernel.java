@@ -0,0 +1,13 @@
+package org.example.render;
+
+/**
+ * 批量光线步进内核
+ * 只负责几何步进（视界、吸积盘命中与逃逸判定），着色仍由渲染器逐像素完成
+ */
+interface RayBatchKernel {
+
+    /**
+     * 步进批次内的全部光线，写回终止位置、最终方向和结果
+     */
+    void march(RayMarchRenderer.FrameState frame, RayBatch batch);
+}
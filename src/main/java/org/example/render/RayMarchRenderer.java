@@ -0,0 +1,1213 @@
+package org.example.render;
+
+import org.example.core.Camera;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.Stage;
+import org.example.simulation.BlackHole;
+import org.example.simulation.BlackbodyTable;
+import org.example.simulation.DeflectionTable;
+import org.example.simulation.DiskOrbitTable;
+import org.example.simulation.GeodesicIntegrator;
+import org.example.simulation.KerrGeodesicIntegrator;
+import org.joml.Vector3f;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.example.render.ShaderMath.*;
+
+/**
+ * CPU光线步进渲染器
+ * 在纯Java中复现fragment_shader.glsl的光线步进循环，图像按图块划分后由ForkJoin线程池并行处理
+ */
+public class RayMarchRenderer {
+    // 与着色器保持一致的步进参数
+    public static final int MAX_STEPS = 200;
+    public static final float MAX_DISTANCE = 200.0f;
+
+    // 图块边长（像素）
+    public static final int TILE_SIZE = 32;
+
+    // 代理球体半径（与renderBlackHole()中的模型矩阵一致）
+    private static final float PROXY_SPHERE_RADIUS = 8.0f;
+
+    /**
+     * 步进后端
+     */
+    public enum Backend {
+        // 逐像素标量步进
+        SCALAR,
+        // 按图块打包光线，由Vector API内核以SIMD通道步进
+        VECTOR
+    }
+
+    // SIMD内核（运行环境不支持Vector API时为null）
+    private static final RayBatchKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private final BlackHole blackHole;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tileCount;
+    private final float[] pixels;
+    private final ForkJoinPool pool;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // 构造帧参数时复用的临时向量（render()不可重入）
+    private final Vector3f scratchPosition = new Vector3f();
+    private final Vector3f scratchFront = new Vector3f();
+    private final Vector3f scratchRight = new Vector3f();
+    private final Vector3f scratchUp = new Vector3f();
+    private final Vector3f scratchHole = new Vector3f();
+
+    // 着色器uniform参数（默认值与setupShaderUniforms()一致）
+    private float eventHorizonRadius = 1.2f;
+    private float innerDiskRadius = 2.0f;
+    private float outerDiskRadius = 6.0f;
+
+    // 偏折查找表（启用后按需构建，质量变化时重建）
+    private boolean useDeflectionTable;
+    private DeflectionTable deflectionTable;
+    private File cacheDir = DeflectionTable.defaultCacheDir();
+
+    // 测地线积分器（启用后代替启发式步进，事件视界半径变化时重建）
+    private boolean useGeodesicIntegrator;
+    private double geodesicTolerance = 1e-6;
+    private GeodesicIntegrator geodesicIntegrator;
+    private final LongAdder geodesicEvaluations = new LongAdder();
+    private long lastFrameGeodesicEvaluations;
+
+    // 克尔测地线积分器（启用后优先于史瓦西积分器，自旋取自BlackHole，参数变化时重建）
+    private boolean useKerr;
+    private KerrGeodesicIntegrator kerrIntegrator;
+    // 逐像素的克尔光线结局，相机和黑洞参数不变时只按时间重新着色
+    private KerrRayCache kerrCache;
+    private boolean kerrReplay;
+
+    // 预烘焙噪声纹理（启用后代替吸积盘着色中的fbm()）
+    private boolean useNoiseCache;
+    private NoiseCache noiseCache;
+
+    // 吸积盘颜色按温度查黑体表（关闭时使用着色器的三色渐变）
+    private boolean useBlackbody;
+
+    // 相对论多普勒增亮与红移（启用后按轨道速度表逐样本计算频移因子，黑洞或吸积盘参数变化时重建）
+    private boolean useDoppler;
+    private DiskOrbitTable orbitTable;
+
+    // 距离LOD策略（为null时所有光线使用完整步数）
+    private LodPolicy lodPolicy;
+
+    // 星表（为null时按着色器的哈希函数生成星星）
+    private StarCatalog starCatalog;
+    // 预滤波星空立方体贴图（设置后优先于星表）
+    private SkyCubeMap skyMap;
+
+    // 步进后端及每个工作线程的光线批次
+    private Backend backend = defaultBackend();
+    private final ThreadLocal<RayBatch> batches = ThreadLocal.withInitial(() -> new RayBatch(TILE_SIZE * TILE_SIZE));
+    private final ThreadLocal<RayScratch> scratches = ThreadLocal.withInitial(RayScratch::new);
+
+    /**
+     * 构造函数 - 使用全部可用处理器核心
+     */
+    public RayMarchRenderer(BlackHole blackHole, int width, int height) {
+        this(blackHole, width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造函数 - 指定渲染线程数
+     */
+    public RayMarchRenderer(BlackHole blackHole, int width, int height, int threads) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+        }
+        this.blackHole = blackHole;
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileCount = tilesX * ((height + TILE_SIZE - 1) / TILE_SIZE);
+        this.pixels = new float[width * height * 3];
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * 渲染一帧
+     *
+     * @param camera 观察相机
+     * @param time   模拟时间（对应着色器的time uniform）
+     * @return 行优先、自上而下的RGB像素数组（已色调映射），每帧复用
+     */
+    public float[] render(Camera camera, float time) {
+        long start = System.nanoTime();
+        FrameState frame = prepareFrame(camera, time);
+        geodesicEvaluations.reset();
+        if (frame.kerrIntegrator != null) {
+            if (kerrCache == null) {
+                kerrCache = new KerrRayCache(width * height);
+            }
+            kerrReplay = kerrCache.matches(frame);
+            if (!kerrReplay) {
+                kerrCache.invalidate();
+            }
+        }
+        pool.invoke(new TileTask(frame, 0, tileCount));
+        if (frame.kerrIntegrator != null && !kerrReplay) {
+            // 整帧写完后才生效，渲染中途出错不会留下不完整的缓存
+            kerrCache.commit(frame);
+        }
+        lastFrameGeodesicEvaluations = geodesicEvaluations.sum();
+        metrics.recordSince(Stage.CPU_RENDER, start);
+        return pixels;
+    }
+
+    /**
+     * 生成单帧渲染参数快照（复用临时向量，不可重入）
+     */
+    FrameState prepareFrame(Camera camera, float time) {
+        if (useNoiseCache && noiseCache == null) {
+            noiseCache = new NoiseCache();
+        }
+        return new FrameState(camera, time, useDeflectionTable ? currentDeflectionTable() : null,
+                useGeodesicIntegrator ? currentGeodesicIntegrator() : null, useKerr ? currentKerrIntegrator() : null,
+                useNoiseCache ? noiseCache : null, lodPolicy, starCatalog, skyMap);
+    }
+
+    /**
+     * 当前线程的逐光线临时对象
+     */
+    RayScratch scratch() {
+        return scratches.get();
+    }
+
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * 加载SIMD内核；需要JDK 16+且启用jdk.incubator.vector模块，否则返回null
+     */
+    private static RayBatchKernel loadVectorKernel() {
+        try {
+            Class<?> type = Class.forName("org.example.render.VectorRayKernel");
+            return (RayBatchKernel) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 检查SIMD后端是否可用
+     */
+    public static boolean isVectorBackendAvailable() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /**
+     * 默认后端：可通过系统属性blackhole.render.backend=scalar|vector指定，否则优先使用SIMD
+     * 无法识别的属性值只打印警告并按未指定处理
+     */
+    private static Backend defaultBackend() {
+        String name = System.getProperty("blackhole.render.backend");
+        if (name != null) {
+            try {
+                if (Backend.valueOf(name.trim().toUpperCase(Locale.ROOT)) == Backend.SCALAR) {
+                    return Backend.SCALAR;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring unknown blackhole.render.backend: " + name
+                        + " (expected scalar or vector)");
+            }
+        }
+        return isVectorBackendAvailable() ? Backend.VECTOR : Backend.SCALAR;
+    }
+
+    /**
+     * 获取与当前黑洞质量匹配的偏折查找表，质量改变后惰性重建
+     */
+    private DeflectionTable currentDeflectionTable() {
+        float mass = blackHole.getMass();
+        if (deflectionTable == null || !deflectionTable.matches(mass, eventHorizonRadius)) {
+            deflectionTable = DeflectionTable.loadOrBuild(mass, eventHorizonRadius, cacheDir);
+        }
+        return deflectionTable;
+    }
+
+    /**
+     * 获取与当前事件视界半径匹配的测地线积分器
+     */
+    private GeodesicIntegrator currentGeodesicIntegrator() {
+        if (geodesicIntegrator == null || geodesicIntegrator.getSchwarzschildRadius() != eventHorizonRadius) {
+            geodesicIntegrator = new GeodesicIntegrator(eventHorizonRadius);
+        }
+        geodesicIntegrator.setTolerance(geodesicTolerance);
+        return geodesicIntegrator;
+    }
+
+    /**
+     * 获取与当前事件视界半径（视为史瓦西半径）、黑洞自旋和误差容限匹配的克尔积分器
+     * 参数变化时重建而不是原地修改，积分器实例即可作为逐像素缓存的键
+     */
+    private KerrGeodesicIntegrator currentKerrIntegrator() {
+        float mass = eventHorizonRadius * 0.5f;
+        float spin = blackHole.getSpin();
+        if (kerrIntegrator == null || kerrIntegrator.getMass() != mass || kerrIntegrator.getSpin() != spin
+                || kerrIntegrator.getTolerance() != geodesicTolerance) {
+            kerrIntegrator = new KerrGeodesicIntegrator(mass, spin);
+            kerrIntegrator.setTolerance(geodesicTolerance);
+        }
+        return kerrIntegrator;
+    }
+
+    /**
+     * 获取与当前黑洞参数和吸积盘范围匹配的轨道速度表（非克尔模式下自旋为0）
+     */
+    private DiskOrbitTable currentOrbitTable(KerrGeodesicIntegrator kerr, float innerRadius) {
+        float mass = eventHorizonRadius * 0.5f;
+        float spin = kerr != null ? kerr.getSpin() : 0.0f;
+        if (orbitTable == null || !orbitTable.matches(mass, spin, innerRadius, outerDiskRadius)) {
+            orbitTable = new DiskOrbitTable(mass, spin, innerRadius, outerDiskRadius);
+        }
+        return orbitTable;
+    }
+
+    /**
+     * 渲染单个图块
+     */
+    private void renderTile(FrameState frame, int tile) {
+        long start = System.nanoTime();
+        int x0 = (tile % tilesX) * TILE_SIZE;
+        int y0 = (tile / tilesX) * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, width);
+        int y1 = Math.min(y0 + TILE_SIZE, height);
+
+        // SIMD后端先收集光线，图块扫描结束后批量步进
+        RayBatch batch = null;
+        if (frame.deflectionTable == null && frame.geodesicIntegrator == null && frame.kerrIntegrator == null
+                && backend == Backend.VECTOR) {
+            batch = batches.get();
+            batch.count = 0;
+        }
+
+        RayScratch scratch = scratches.get();
+        float[] direction = scratch.direction;
+        long evaluations = 0;
+
+        for (int py = y0; py < y1; py++) {
+            for (int px = x0; px < x1; px++) {
+                int offset = (py * width + px) * 3;
+                if (frame.kerrIntegrator != null) {
+                    // 克尔光线：缓存命中时按记录的结局重新着色，否则积分后写入缓存
+                    int index = py * width + px;
+                    if (kerrReplay) {
+                        kerrCache.load(index, scratch);
+                        shadeRecorded(frame, scratch, px + 0.5f, py + 0.5f, pixels, offset);
+                    } else {
+                        evaluations += sample(frame, scratch, px + 0.5f, py + 0.5f, pixels, offset);
+                        kerrCache.store(index, scratch);
+                    }
+                } else if (batch == null) {
+                    evaluations += sample(frame, scratch, px + 0.5f, py + 0.5f, pixels, offset);
+                } else if (primaryRay(frame, px + 0.5f, py + 0.5f, direction)) {
+                    // gl_FragCoord以左下角为原点；LOD跳过的光线不进入批次
+                    if (frame.lodPolicy == null || !lodSkip(frame, scratch, direction[0], direction[1], direction[2],
+                            px + 0.5f, height - py - 0.5f, pixels, offset)) {
+                        batch.add(direction[0], direction[1], direction[2], px + 0.5f, height - py - 0.5f, offset);
+                    }
+                } else {
+                    pixels[offset] = 0.0f;
+                    pixels[offset + 1] = 0.0f;
+                    pixels[offset + 2] = 0.0f;
+                }
+            }
+        }
+
+        if (batch != null && batch.count > 0) {
+            VECTOR_KERNEL.march(frame, batch);
+            for (int i = 0; i < batch.count; i++) {
+                shadeBatchedRay(frame, batch, i, pixels);
+            }
+        }
+        if (evaluations > 0) {
+            geodesicEvaluations.add(evaluations);
+        }
+        metrics.recordSince(Stage.RENDER_TILE, start);
+    }
+
+    /**
+     * 在图像平面任意位置采样一条光线并写入着色结果，光线结局记录在scratch中
+     *
+     * @param x 图像横坐标（像素单位，原点在左上角，像素中心为+0.5）
+     * @param y 图像纵坐标（向下为正）
+     * @return 测地线方程求值次数（未启用测地线积分器时为0）
+     */
+    int sample(FrameState frame, RayScratch scratch, float x, float y, float[] out, int offset) {
+        float[] direction = scratch.direction;
+        if (!primaryRay(frame, x, y, direction)) {
+            // 代理球体之外只有清屏颜色
+            scratch.outcome = RayScratch.MISSED;
+            out[offset] = 0.0f;
+            out[offset + 1] = 0.0f;
+            out[offset + 2] = 0.0f;
+            return 0;
+        }
+
+        // gl_FragCoord以左下角为原点，且总是落在像素中心（星空按像素取哈希）
+        float fragX = (float) Math.floor(x) + 0.5f;
+        float fragY = height - ((float) Math.floor(y) + 0.5f);
+        if (frame.lodPolicy != null
+                && lodSkip(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset)) {
+            return 0;
+        }
+        if (frame.kerrIntegrator != null) {
+            kerrRay(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset);
+            return scratch.kerr.evaluations;
+        }
+        if (frame.geodesicIntegrator != null) {
+            geodesicRay(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset);
+            return scratch.geodesic.evaluations;
+        }
+        if (frame.deflectionTable != null) {
+            lookupRay(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset);
+        } else if (frame.lodPolicy != null) {
+            lodTrace(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset);
+        } else {
+            traceRay(frame, scratch, direction[0], direction[1], direction[2], fragX, fragY, out, offset);
+        }
+        return 0;
+    }
+
+    /**
+     * LOD：未偏折时不进入LOD球的光线跳过步进，直接取背景
+     *
+     * @return 光线被跳过时返回true（已写入着色结果）
+     */
+    private boolean lodSkip(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                            float fragX, float fragY, float[] out, int offset) {
+        float toX = frame.holeX - frame.camX;
+        float toY = frame.holeY - frame.camY;
+        float toZ = frame.holeZ - frame.camZ;
+        float along = toX * dirX + toY * dirY + toZ * dirZ;
+        float distanceSquared = toX * toX + toY * toY + toZ * toZ;
+
+        // 最近距离：背离黑洞的光线就是相机处的距离
+        float impactSquared = along > 0.0f ? distanceSquared - along * along : distanceSquared;
+        float radius = frame.lodPolicy.radius(frame.outerDiskRadius);
+        if (impactSquared <= radius * radius) {
+            return false;
+        }
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+        hit.recordEscape(dirX, dirY, dirZ);
+        shadeBackground(frame, dirX, dirY, dirZ, fragX, fragY, out, offset);
+        toneMap(out, offset);
+        return true;
+    }
+
+    /**
+     * LOD：从LOD球面开始启发式步进，步数预算随透镜强度增加
+     */
+    private void lodTrace(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                          float fragX, float fragY, float[] out, int offset) {
+        LodPolicy lod = frame.lodPolicy;
+        float toX = frame.holeX - frame.camX;
+        float toY = frame.holeY - frame.camY;
+        float toZ = frame.holeZ - frame.camZ;
+        float along = toX * dirX + toY * dirY + toZ * dirZ;
+        float perpendicularSquared = Math.max(toX * toX + toY * toY + toZ * toZ - along * along, 0.0f);
+
+        float radius = lod.radius(frame.outerDiskRadius);
+        float halfChord = (float) Math.sqrt(Math.max(radius * radius - perpendicularSquared, 0.0f));
+        float entry = Math.max(along - halfChord, 0.0f);
+        float exit = along + halfChord;
+        int budget = lod.stepBudget((float) Math.sqrt(perpendicularSquared), exit - entry, frame.eventHorizonRadius);
+        traceRay(frame, hit, dirX, dirY, dirZ, entry, budget, radius, fragX, fragY, out, offset);
+    }
+
+    /**
+     * 计算图像平面位置对应的归一化视线方向
+     *
+     * @return 视线是否覆盖代理球体
+     */
+    boolean primaryRay(FrameState frame, float x, float y, float[] direction) {
+        // 屏幕空间坐标（纵轴向上为正）
+        float sx = (2.0f * x / width - 1.0f) * frame.tanHalfFov * frame.aspect;
+        float sy = (1.0f - 2.0f * y / height) * frame.tanHalfFov;
+
+        float dx = frame.frontX + frame.rightX * sx + frame.upX * sy;
+        float dy = frame.frontY + frame.rightY * sx + frame.upY * sy;
+        float dz = frame.frontZ + frame.rightZ * sx + frame.upZ * sy;
+        float invLength = 1.0f / (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        direction[0] = dx * invLength;
+        direction[1] = dy * invLength;
+        direction[2] = dz * invLength;
+        return hitsProxySphere(frame, direction[0], direction[1], direction[2]);
+    }
+
+    /**
+     * 检查视线是否覆盖代理球体（GPU路径只对球体片段执行着色器）
+     */
+    private boolean hitsProxySphere(FrameState frame, float dx, float dy, float dz) {
+        float b = frame.camX * dx + frame.camY * dy + frame.camZ * dz;
+        float c = frame.camX * frame.camX + frame.camY * frame.camY + frame.camZ * frame.camZ
+                - PROXY_SPHERE_RADIUS * PROXY_SPHERE_RADIUS;
+        float discriminant = b * b - c;
+        return discriminant >= 0.0f && -b + (float) Math.sqrt(discriminant) > 0.0f;
+    }
+
+    /**
+     * 沿单条光线步进 - 对应片段着色器main()中的循环
+     *
+     * @param hit   记录光线结局
+     * @param fragX 像素中心横坐标（gl_FragCoord.x）
+     * @param fragY 像素中心纵坐标（gl_FragCoord.y）
+     */
+    void traceRay(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                  float fragX, float fragY, float[] out, int offset) {
+        traceRay(frame, hit, dirX, dirY, dirZ, 0.0f, MAX_STEPS, Float.POSITIVE_INFINITY, fragX, fragY, out, offset);
+    }
+
+    /**
+     * 沿单条光线步进（LOD版本）
+     *
+     * @param startDistance 沿视线跳过的距离
+     * @param maxSteps      步数预算
+     * @param exitRadius    光线在此半径之外背离黑洞时视为逃逸
+     */
+    void traceRay(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                  float startDistance, int maxSteps, float exitRadius,
+                  float fragX, float fragY, float[] out, int offset) {
+        float posX = frame.camX + dirX * startDistance;
+        float posY = frame.camY + dirY * startDistance;
+        float posZ = frame.camZ + dirZ * startDistance;
+        // 光子角动量取自相机处的初始方向，步进中弯曲方向不改变它
+        float angularMomentum = photonAngularMomentum(frame, dirX, dirZ);
+
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+        hit.outcome = RayScratch.CAPTURED;
+
+        for (int i = 0; i < maxSteps; i++) {
+            float toX = frame.holeX - posX;
+            float toY = frame.holeY - posY;
+            float toZ = frame.holeZ - posZ;
+            float distToBlackHole = (float) Math.sqrt(toX * toX + toY * toY + toZ * toZ);
+
+            // 事件视界检测
+            if (distToBlackHole < frame.eventHorizonRadius) {
+                break;
+            }
+
+            // 离开LOD球并背离黑洞
+            if (distToBlackHole > exitRadius && toX * dirX + toY * dirY + toZ * dirZ < 0.0f) {
+                hit.recordEscape(dirX, dirY, dirZ);
+                shadeBackground(frame, dirX, dirY, dirZ, fragX, fragY, out, offset);
+                break;
+            }
+
+            // 吸积盘检测
+            float diskRadius = (float) Math.sqrt(posX * posX + posZ * posZ);
+            if (diskRadius > frame.innerDiskRadius && diskRadius < frame.outerDiskRadius) {
+                float height = Math.abs(posY);
+                float dynamicThickness = 0.03f * (float) Math.sin(diskRadius * 2.0f - frame.time * 1.5f);
+                float diskThickness = 0.08f + dynamicThickness * dynamicThickness;
+
+                if (height < diskThickness) {
+                    float redshift = diskRedshift(frame, angularMomentum, posX, posZ);
+                    hit.recordDisk(posX, posZ, height, redshift);
+                    shadeDisk(frame, posX, posZ, diskRadius, height, diskThickness, redshift, out, offset);
+                    break;
+                }
+            }
+
+            // 引力透镜效应
+            float gravityStrength = frame.mass / (distToBlackHole * distToBlackHole + 0.1f);
+            float bendFactor = Math.min(gravityStrength * 0.12f, 0.25f) / distToBlackHole;
+            dirX += toX * bendFactor;
+            dirY += toY * bendFactor;
+            dirZ += toZ * bendFactor;
+            float invLength = 1.0f / (float) Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+            dirX *= invLength;
+            dirY *= invLength;
+            dirZ *= invLength;
+
+            // 自适应步长
+            float stepSize = mix(0.05f, 0.3f, smoothstep(0.0f, 3.0f, distToBlackHole));
+            posX += dirX * stepSize;
+            posY += dirY * stepSize;
+            posZ += dirZ * stepSize;
+
+            // 距离限制 - 光线逃逸，显示星空背景
+            float ex = posX - frame.camX;
+            float ey = posY - frame.camY;
+            float ez = posZ - frame.camZ;
+            if (ex * ex + ey * ey + ez * ez > MAX_DISTANCE * MAX_DISTANCE) {
+                hit.recordEscape(dirX, dirY, dirZ);
+                shadeBackground(frame, dirX, dirY, dirZ, fragX, fragY, out, offset);
+                break;
+            }
+        }
+
+        // 色调映射
+        toneMap(out, offset);
+    }
+
+    /**
+     * 根据批量步进的结果为单条光线着色
+     */
+    private void shadeBatchedRay(FrameState frame, RayBatch batch, int ray, float[] out) {
+        int offset = batch.offset[ray];
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+
+        float state = batch.state[ray];
+        if (state == RayBatch.DISK) {
+            float posX = batch.posX[ray];
+            float posZ = batch.posZ[ray];
+            float diskRadius = (float) Math.sqrt(posX * posX + posZ * posZ);
+            float dynamicThickness = 0.03f * (float) Math.sin(diskRadius * 2.0f - frame.time * 1.5f);
+            float diskThickness = 0.08f + dynamicThickness * dynamicThickness;
+            // 批量内核只为逃逸光线写回方向，吸积盘光线保留初始方向
+            float redshift = diskRedshift(frame, photonAngularMomentum(frame, batch.dirX[ray], batch.dirZ[ray]),
+                    posX, posZ);
+            shadeDisk(frame, posX, posZ, diskRadius, Math.abs(batch.posY[ray]), diskThickness, redshift,
+                    out, offset);
+        } else if (state == RayBatch.ESCAPED) {
+            shadeBackground(frame, batch.dirX[ray], batch.dirY[ray], batch.dirZ[ray],
+                    batch.fragX[ray], batch.fragY[ray], out, offset);
+        }
+
+        toneMap(out, offset);
+    }
+
+    /**
+     * 通过偏折查找表求解单条光线，代替逐步步进
+     * 吸积盘视为黑洞所在水平面上的薄盘，光线平面与盘面的交线决定穿越时扫过的角度
+     */
+    void lookupRay(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                   float fragX, float fragY, float[] out, int offset) {
+        DeflectionTable table = frame.deflectionTable;
+        RayPlane plane = hit.plane;
+        plane.set(frame, dirX, dirY, dirZ);
+        if (!table.covers(plane.distance)) {
+            traceRay(frame, hit, dirX, dirY, dirZ, fragX, fragY, out, offset);
+            return;
+        }
+        float distance = plane.distance;
+        float angle = plane.angle;
+
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+        hit.outcome = RayScratch.CAPTURED;
+
+        // 吸积盘穿越：轨迹每扫过π与盘面相交一次
+        float node = plane.nodePhase();
+        if (!Float.isNaN(node)) {
+            float sweep = table.sweep(distance, angle);
+            for (float phase = node; phase <= sweep; phase += (float) Math.PI) {
+                float radius = table.radiusAt(distance, angle, phase);
+                if (Float.isNaN(radius)) {
+                    break;
+                }
+                if (radius > frame.innerDiskRadius && radius < frame.outerDiskRadius) {
+                    shadeDiskHit(frame, hit, radius, phase, photonAngularMomentum(frame, dirX, dirZ), out, offset);
+                    toneMap(out, offset);
+                    return;
+                }
+            }
+        }
+
+        // 逃逸光线：由偏折角还原出射方向
+        if (table.outcome(distance, angle) == DeflectionTable.ESCAPED) {
+            float exitAngle = (float) Math.PI - angle + table.deflection(distance, angle);
+            hit.recordEscape(plane.directionX(exitAngle), plane.directionY(exitAngle), plane.directionZ(exitAngle));
+            shadeBackground(frame, hit.exitX, hit.exitY, hit.exitZ, fragX, fragY, out, offset);
+        }
+
+        toneMap(out, offset);
+    }
+
+    /**
+     * 用自适应步长测地线积分器求解单条光线
+     */
+    void geodesicRay(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                     float fragX, float fragY, float[] out, int offset) {
+        RayPlane plane = hit.plane;
+        GeodesicIntegrator.Result result = hit.geodesic;
+        plane.set(frame, dirX, dirY, dirZ);
+        frame.geodesicIntegrator.trace(plane.distance, plane.angle, plane.nodePhase(),
+                frame.innerDiskRadius, frame.outerDiskRadius, result);
+
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+        hit.outcome = RayScratch.CAPTURED;
+
+        if (result.outcome == GeodesicIntegrator.DISK) {
+            shadeDiskHit(frame, hit, result.diskRadius, result.diskPhase, photonAngularMomentum(frame, dirX, dirZ),
+                    out, offset);
+        } else if (result.outcome == GeodesicIntegrator.ESCAPED) {
+            float exitAngle = result.exitAngle;
+            hit.recordEscape(plane.directionX(exitAngle), plane.directionY(exitAngle), plane.directionZ(exitAngle));
+            shadeBackground(frame, hit.exitX, hit.exitY, hit.exitZ, fragX, fragY, out, offset);
+        }
+
+        toneMap(out, offset);
+    }
+
+    /**
+     * 用克尔测地线积分器求解单条光线
+     */
+    void kerrRay(FrameState frame, RayScratch hit, float dirX, float dirY, float dirZ,
+                 float fragX, float fragY, float[] out, int offset) {
+        KerrGeodesicIntegrator.Result result = hit.kerr;
+        frame.kerrIntegrator.trace(frame.camX - frame.holeX, frame.camY - frame.holeY, frame.camZ - frame.holeZ,
+                dirX, dirY, dirZ, frame.innerDiskRadius, frame.outerDiskRadius, result);
+
+        hit.outcome = RayScratch.CAPTURED;
+        if (result.outcome == KerrGeodesicIntegrator.DISK) {
+            // 克尔积分器给出的角动量以M为单位，正向与流体转向相同；相机是ZAMO而非静止观测者
+            float redshift = frame.orbitTable != null
+                    ? result.observerFrequency * frame.orbitTable.redshift(result.diskRadius,
+                    result.angularMomentum * frame.kerrIntegrator.getMass())
+                    : 1.0f;
+            hit.recordDisk(frame.holeX + result.diskX, frame.holeZ + result.diskZ, 0.0f, redshift);
+        } else if (result.outcome == KerrGeodesicIntegrator.ESCAPED) {
+            hit.recordEscape(result.exitX, result.exitY, result.exitZ);
+        }
+        shadeOutcome(frame, hit, fragX, fragY, out, offset);
+    }
+
+    /**
+     * 为薄盘穿越点着色（平面内半径和角度给出）
+     */
+    private void shadeDiskHit(FrameState frame, RayScratch hit, float radius, float phase, float angularMomentum,
+                              float[] out, int offset) {
+        RayPlane plane = hit.plane;
+        float hitX = frame.holeX + radius * plane.directionX(phase);
+        float hitZ = frame.holeZ + radius * plane.directionZ(phase);
+        float redshift = frame.orbitTable != null
+                ? frame.observerFrequency * frame.orbitTable.redshift(radius, angularMomentum)
+                : 1.0f;
+        hit.recordDisk(hitX, hitZ, 0.0f, redshift);
+        float diskRadius = (float) Math.sqrt(hitX * hitX + hitZ * hitZ);
+        float dynamicThickness = 0.03f * (float) Math.sin(diskRadius * 2.0f - frame.time * 1.5f);
+        float diskThickness = 0.08f + dynamicThickness * dynamicThickness;
+        shadeDisk(frame, hitX, hitZ, diskRadius, 0.0f, diskThickness, redshift, out, offset);
+    }
+
+    /**
+     * 相机处沿视线方向（已归一化）反向射来的光子绕黑洞竖直轴的角动量L/E，与流体转向相同为正
+     * 静止观测者测得的能量比无穷远处高1/sqrt(1 − rs/r)倍，L/E相应放大
+     */
+    private static float photonAngularMomentum(FrameState frame, float dirX, float dirZ) {
+        return ((frame.camZ - frame.holeZ) * dirX - (frame.camX - frame.holeX) * dirZ) * frame.observerFrequency;
+    }
+
+    /**
+     * 世界坐标(posX, posZ)处吸积盘样本的频移因子g（未启用多普勒时为1）
+     */
+    private static float diskRedshift(FrameState frame, float angularMomentum, float posX, float posZ) {
+        if (frame.orbitTable == null) {
+            return 1.0f;
+        }
+        float relativeX = posX - frame.holeX;
+        float relativeZ = posZ - frame.holeZ;
+        float radius = (float) Math.sqrt(relativeX * relativeX + relativeZ * relativeZ);
+        return frame.observerFrequency * frame.orbitTable.redshift(radius, angularMomentum);
+    }
+
+    /**
+     * 吸积盘着色 - 温度梯度、FBM湍流、高度羽化与径向衰减
+     *
+     * @param redshift 频移因子g（观测频率/发射频率），只在启用多普勒时使用
+     */
+    private void shadeDisk(FrameState frame, float posX, float posZ, float diskRadius,
+                           float height, float diskThickness, float redshift, float[] out, int offset) {
+        float t = (diskRadius - frame.innerDiskRadius) / (frame.outerDiskRadius - frame.innerDiskRadius);
+        t = smoothstep(0.0f, 1.0f, t);
+
+        // 温度梯度颜色（内：偏白，中：橙黄，外：深红）
+        float r, g, b;
+        if (frame.orbitTable != null) {
+            // 多普勒：观测温度为g·T，黑体表按对数温度排列，频移即索引偏移；
+            // 表项已乘以T^4，同一次查询同时给出g^4的增亮（I_obs = g^4·I_emit）
+            BlackbodyTable.emission(BlackbodyTable.index(
+                    mix(BlackHole.DISK_INNER_TEMPERATURE, BlackHole.DISK_OUTER_TEMPERATURE, t))
+                    + BlackbodyTable.shift(redshift), out, offset);
+            r = out[offset];
+            g = out[offset + 1];
+            b = out[offset + 2];
+        } else if (frame.blackbody) {
+            // 黑体辐射：温度沿半径从内缘到外缘渐变，颜色已乘以T^4亮度（内缘为1）
+            BlackbodyTable.emission(BlackbodyTable.index(
+                    mix(BlackHole.DISK_INNER_TEMPERATURE, BlackHole.DISK_OUTER_TEMPERATURE, t)), out, offset);
+            r = out[offset];
+            g = out[offset + 1];
+            b = out[offset + 2];
+        } else if (t < 0.6f) {
+            float k = t / 0.3f;
+            r = mix(1.0f, 1.0f, k);
+            g = mix(1.0f, 0.7f, k);
+            b = mix(0.9f, 0.3f, k);
+        } else {
+            float k = (t - 0.3f) / 0.7f;
+            r = mix(1.0f, 0.8f, k);
+            g = mix(0.7f, 0.2f, k);
+            b = mix(0.3f, 0.1f, k);
+        }
+
+        // 湍流效果
+        float u = (float) Math.atan2(posZ, posX) / (2.0f * 3.14159f);
+        float v = diskRadius * 0.5f;
+        float turbulence;
+        if (frame.noiseCache != null) {
+            // 平移UV采样预烘焙纹理
+            NoiseCache noise = frame.noiseCache;
+            turbulence = noise.fbm(u * 6.0f + frame.time * 0.5f, v * 6.0f + frame.time * 0.5f) * 0.3f
+                    + noise.fbm(u * 12.0f - frame.time * 0.8f, v * 12.0f - frame.time * 0.8f) * 0.15f;
+        } else {
+            turbulence = fbm(u * 6.0f + frame.time * 0.5f, v * 6.0f + frame.time * 0.5f) * 0.3f
+                    + fbm(u * 12.0f - frame.time * 0.8f, v * 12.0f - frame.time * 0.8f) * 0.15f;
+        }
+        turbulence = clamp(turbulence, -0.2f, 0.2f);
+
+        // 湍流增益、高度羽化与径向衰减
+        float intensity = (3.9f + 3.2f * turbulence)
+                * (1.0f - smoothstep(0.0f, diskThickness * 0.8f, height))
+                * (1.0f - t * 0.3f);
+
+        out[offset] = r * intensity;
+        out[offset + 1] = g * intensity;
+        out[offset + 2] = b * intensity;
+    }
+
+    /**
+     * 按已记录的光线结局为任意像素着色，不重新求解光线
+     * 星空按像素取哈希，吸积盘按当前时间重新计算湍流
+     */
+    void shadeRecorded(FrameState frame, RayScratch hit, float x, float y, float[] out, int offset) {
+        shadeOutcome(frame, hit, (float) Math.floor(x) + 0.5f, height - ((float) Math.floor(y) + 0.5f), out, offset);
+    }
+
+    /**
+     * 按光线结局着色（gl_FragCoord坐标）
+     */
+    private void shadeOutcome(FrameState frame, RayScratch hit, float fragX, float fragY, float[] out, int offset) {
+        out[offset] = 0.0f;
+        out[offset + 1] = 0.0f;
+        out[offset + 2] = 0.0f;
+        if (hit.outcome == RayScratch.ESCAPED) {
+            shadeBackground(frame, hit.exitX, hit.exitY, hit.exitZ, fragX, fragY, out, offset);
+        } else if (hit.outcome == RayScratch.DISK) {
+            float diskRadius = (float) Math.sqrt(hit.diskX * hit.diskX + hit.diskZ * hit.diskZ);
+            float dynamicThickness = 0.03f * (float) Math.sin(diskRadius * 2.0f - frame.time * 1.5f);
+            float diskThickness = 0.08f + dynamicThickness * dynamicThickness;
+            shadeDisk(frame, hit.diskX, hit.diskZ, diskRadius, hit.diskHeight, diskThickness, hit.diskRedshift,
+                    out, offset);
+        }
+        toneMap(out, offset);
+    }
+
+    /**
+     * 逃逸光线的星空背景
+     */
+    private void shadeBackground(FrameState frame, float dirX, float dirY, float dirZ,
+                                 float fragX, float fragY, float[] out, int offset) {
+        // 射线方向指向黑洞区域时显示纯黑
+        float dotProduct = dirX * frame.holeDirX + dirY * frame.holeDirY + dirZ * frame.holeDirZ;
+        if (dotProduct > 0.98f) {
+            return;
+        }
+
+        // 立方体贴图按像素张角选择mip级别采样，代价固定
+        if (frame.skyMap != null) {
+            frame.skyMap.sample(dirX, dirY, dirZ, frame.pixelAngle, out, offset);
+            return;
+        }
+
+        // 星表按出射方向查找，透镜偏折后的星像随视角连续移动
+        if (frame.starCatalog != null) {
+            frame.starCatalog.accumulate(dirX, dirY, dirZ, frame.pixelAngle, out, offset);
+            return;
+        }
+
+        // 着色器按1200x800的窗口坐标生成星星
+        float u = fragX / 1200.0f;
+        float v = fragY / 800.0f;
+        float starValue = hash(u * 200.0f + frame.time * 0.05f, v * 200.0f + frame.time * 0.05f);
+        if (starValue > 0.998f) {
+            float brightness = 0.9f + 0.1f * hash(u + 1.0f, v + 1.0f);
+            out[offset] = brightness;
+            out[offset + 1] = brightness;
+            out[offset + 2] = brightness;
+        }
+    }
+
+    /**
+     * 色调映射 - pow(color, 0.85)
+     * 颜色插值外推可能产生负分量，GPU上pow的结果未定义，这里按0处理
+     */
+    private static void toneMap(float[] out, int offset) {
+        for (int c = 0; c < 3; c++) {
+            out[offset + c] = (float) Math.pow(Math.max(out[offset + c], 0.0f), 0.85);
+        }
+    }
+
+    /**
+     * 释放渲染线程池
+     */
+    public void cleanup() {
+        pool.shutdown();
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float[] getPixels() {
+        return pixels;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * 选择步进后端
+     */
+    public void setBackend(Backend backend) {
+        if (backend == Backend.VECTOR && !isVectorBackendAvailable()) {
+            throw new IllegalStateException(
+                    "Vector backend requires JDK 17+ started with --add-modules jdk.incubator.vector");
+        }
+        this.backend = backend;
+    }
+
+    public int getThreadCount() {
+        return pool.getParallelism();
+    }
+
+    public float getEventHorizonRadius() {
+        return eventHorizonRadius;
+    }
+
+    public void setEventHorizonRadius(float eventHorizonRadius) {
+        this.eventHorizonRadius = eventHorizonRadius;
+    }
+
+    public float getInnerDiskRadius() {
+        return innerDiskRadius;
+    }
+
+    public void setInnerDiskRadius(float innerDiskRadius) {
+        this.innerDiskRadius = innerDiskRadius;
+    }
+
+    public boolean isUseDeflectionTable() {
+        return useDeflectionTable;
+    }
+
+    /**
+     * 启用偏折查找表代替逐像素步进
+     */
+    public void setUseDeflectionTable(boolean useDeflectionTable) {
+        this.useDeflectionTable = useDeflectionTable;
+    }
+
+    public boolean isUseGeodesicIntegrator() {
+        return useGeodesicIntegrator;
+    }
+
+    /**
+     * 启用史瓦西测地线积分器代替启发式步进（优先于偏折查找表）
+     */
+    public void setUseGeodesicIntegrator(boolean useGeodesicIntegrator) {
+        this.useGeodesicIntegrator = useGeodesicIntegrator;
+    }
+
+    public double getGeodesicTolerance() {
+        return geodesicTolerance;
+    }
+
+    public void setGeodesicTolerance(double geodesicTolerance) {
+        this.geodesicTolerance = geodesicTolerance;
+    }
+
+    /**
+     * 上一帧所有光线的测地线方程求值总次数
+     */
+    public long getLastFrameGeodesicEvaluations() {
+        return lastFrameGeodesicEvaluations;
+    }
+
+    public boolean isUseKerr() {
+        return useKerr;
+    }
+
+    /**
+     * 启用克尔测地线积分器（优先于其他求解方式），自旋由BlackHole.setSpin()指定，吸积盘内缘取对应的ISCO
+     */
+    public void setUseKerr(boolean useKerr) {
+        this.useKerr = useKerr;
+    }
+
+    /**
+     * 上一帧是否直接复用了缓存的克尔光线结局（未重新积分）
+     */
+    public boolean isLastFrameKerrCached() {
+        return useKerr && kerrReplay;
+    }
+
+    public boolean isUseNoiseCache() {
+        return useNoiseCache;
+    }
+
+    /**
+     * 启用预烘焙噪声纹理代替逐样本fbm()（首次渲染时烘焙）
+     */
+    public void setUseNoiseCache(boolean useNoiseCache) {
+        this.useNoiseCache = useNoiseCache;
+    }
+
+    /**
+     * 指定噪声纹理（例如按倍频程分层烘焙的实例）
+     */
+    public void setNoiseCache(NoiseCache noiseCache) {
+        this.noiseCache = noiseCache;
+    }
+
+    public boolean isUseBlackbody() {
+        return useBlackbody;
+    }
+
+    /**
+     * 吸积盘颜色改用黑体查找表（与粒子颜色一致），关闭时与着色器的三色渐变一致
+     */
+    public void setUseBlackbody(boolean useBlackbody) {
+        this.useBlackbody = useBlackbody;
+    }
+
+    public boolean isUseDoppler() {
+        return useDoppler;
+    }
+
+    /**
+     * 吸积盘按流体轨道速度和视线方向逐样本计算频移因子g，施加g^4增亮和光谱频移
+     * 频移需要光谱，启用后吸积盘颜色总是查黑体表
+     */
+    public void setUseDoppler(boolean useDoppler) {
+        this.useDoppler = useDoppler;
+    }
+
+    public LodPolicy getLodPolicy() {
+        return lodPolicy;
+    }
+
+    /**
+     * 设置距离LOD策略，传null关闭
+     */
+    public void setLodPolicy(LodPolicy lodPolicy) {
+        this.lodPolicy = lodPolicy;
+    }
+
+    public StarCatalog getStarCatalog() {
+        return starCatalog;
+    }
+
+    /**
+     * 设置背景星表，传null恢复着色器的哈希星空
+     */
+    public void setStarCatalog(StarCatalog starCatalog) {
+        this.starCatalog = starCatalog;
+    }
+
+    public SkyCubeMap getSkyMap() {
+        return skyMap;
+    }
+
+    /**
+     * 设置预烘焙的星空立方体贴图，传null恢复逐像素求值
+     */
+    public void setSkyMap(SkyCubeMap skyMap) {
+        this.skyMap = skyMap;
+    }
+
+    public void setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public float getOuterDiskRadius() {
+        return outerDiskRadius;
+    }
+
+    public void setOuterDiskRadius(float outerDiskRadius) {
+        this.outerDiskRadius = outerDiskRadius;
+    }
+
+    /**
+     * 单帧渲染参数快照（相当于着色器的uniform集合），渲染期间只读
+     */
+    final class FrameState {
+        final float time;
+        final float camX, camY, camZ;
+        final float frontX, frontY, frontZ;
+        final float rightX, rightY, rightZ;
+        final float upX, upY, upZ;
+        final float tanHalfFov;
+        final float aspect;
+        final float holeX, holeY, holeZ;
+        final float holeDirX, holeDirY, holeDirZ;
+        final float mass;
+        final float eventHorizonRadius;
+        final float innerDiskRadius;
+        final float outerDiskRadius;
+        final DeflectionTable deflectionTable;
+        final GeodesicIntegrator geodesicIntegrator;
+        final KerrGeodesicIntegrator kerrIntegrator;
+        final NoiseCache noiseCache;
+        final LodPolicy lodPolicy;
+        final StarCatalog starCatalog;
+        final SkyCubeMap skyMap;
+        final boolean blackbody;
+        // 吸积盘轨道速度表（未启用多普勒时为null）
+        final DiskOrbitTable orbitTable;
+        // 相机处静止观测者测得的光子频率与无穷远处之比
+        final float observerFrequency;
+        // 画面中心单个像素的张角（弧度）
+        final float pixelAngle;
+
+        FrameState(Camera camera, float time, DeflectionTable deflectionTable,
+                   GeodesicIntegrator geodesicIntegrator, KerrGeodesicIntegrator kerrIntegrator,
+                   NoiseCache noiseCache, LodPolicy lodPolicy, StarCatalog starCatalog, SkyCubeMap skyMap) {
+            this.time = time;
+            this.deflectionTable = deflectionTable;
+            this.geodesicIntegrator = geodesicIntegrator;
+            this.kerrIntegrator = kerrIntegrator;
+            this.noiseCache = noiseCache;
+            this.lodPolicy = lodPolicy;
+            this.starCatalog = starCatalog;
+            this.skyMap = skyMap;
+            this.blackbody = useBlackbody;
+
+            Vector3f position = camera.getPosition(scratchPosition);
+            Vector3f front = camera.getFront(scratchFront);
+            Vector3f right = camera.getRight(scratchRight);
+            Vector3f up = camera.getUp(scratchUp);
+            camX = position.x;
+            camY = position.y;
+            camZ = position.z;
+            frontX = front.x;
+            frontY = front.y;
+            frontZ = front.z;
+            rightX = right.x;
+            rightY = right.y;
+            rightZ = right.z;
+            upX = up.x;
+            upY = up.y;
+            upZ = up.z;
+            tanHalfFov = (float) Math.tan(Math.toRadians(camera.getZoom()) * 0.5);
+            aspect = (float) width / height;
+            pixelAngle = 2.0f * tanHalfFov / height;
+
+            Vector3f hole = blackHole.getPosition(scratchHole);
+            holeX = hole.x;
+            holeY = hole.y;
+            holeZ = hole.z;
+            hole.sub(position).normalize();
+            holeDirX = hole.x;
+            holeDirY = hole.y;
+            holeDirZ = hole.z;
+
+            mass = blackHole.getMass();
+            eventHorizonRadius = RayMarchRenderer.this.eventHorizonRadius;
+            // 克尔模式下吸积盘内缘为最内稳定圆轨道
+            innerDiskRadius = kerrIntegrator != null
+                    ? kerrIntegrator.getIscoRadius() : RayMarchRenderer.this.innerDiskRadius;
+            outerDiskRadius = RayMarchRenderer.this.outerDiskRadius;
+
+            orbitTable = useDoppler ? currentOrbitTable(kerrIntegrator, innerDiskRadius) : null;
+            float camDX = camX - holeX;
+            float camDY = camY - holeY;
+            float camDZ = camZ - holeZ;
+            float camDistance = (float) Math.sqrt(camDX * camDX + camDY * camDY + camDZ * camDZ);
+            observerFrequency = 1.0f / (float) Math.sqrt(Math.max(1.0f - eventHorizonRadius / camDistance, 1e-4f));
+        }
+    }
+
+    /**
+     * 逐光线求解时每个工作线程复用的临时对象，同时记录最近一条光线的结局
+     */
+    static final class RayScratch {
+        // 光线结局
+        static final int MISSED = 0;
+        static final int CAPTURED = 1;
+        static final int DISK = 2;
+        static final int ESCAPED = 3;
+
+        final float[] direction = new float[3];
+        final float[] color = new float[3];
+        final RayPlane plane = new RayPlane();
+        final GeodesicIntegrator.Result geodesic = new GeodesicIntegrator.Result();
+        final KerrGeodesicIntegrator.Result kerr = new KerrGeodesicIntegrator.Result();
+
+        int outcome;
+        // 逃逸光线的出射方向
+        float exitX, exitY, exitZ;
+        // 吸积盘命中点（世界坐标XZ）、离盘面高度及频移因子
+        float diskX, diskZ, diskHeight, diskRedshift;
+
+        void recordEscape(float x, float y, float z) {
+            outcome = ESCAPED;
+            exitX = x;
+            exitY = y;
+            exitZ = z;
+        }
+
+        void recordDisk(float x, float z, float height, float redshift) {
+            outcome = DISK;
+            diskX = x;
+            diskZ = z;
+            diskHeight = height;
+            diskRedshift = redshift;
+        }
+    }
+
+    /**
+     * 图块渲染任务 - 递归二分图块区间，由工作窃取实现负载均衡
+     */
+    private final class TileTask extends RecursiveAction {
+        private final FrameState frame;
+        private final int from;
+        private final int to;
+
+        TileTask(FrameState frame, int from, int to) {
+            this.frame = frame;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                renderTile(frame, from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(frame, from, mid), new TileTask(frame, mid, to));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.render;
+
+import static org.example.render.ShaderMath.clamp;
+
+/**
+ * 光线所在的轨道平面
+ * 中心力场下光线始终在由黑洞、相机和初始方向张成的平面内，
+ * 以e1（黑洞指向相机）和e2（光线方向垂直于e1的分量）为基，平面内角度从e1起算
+ */
+final class RayPlane {
+    float e1x, e1y, e1z;
+    float e2x, e2y, e2z;
+    // 相机到黑洞的距离
+    float distance;
+    // 光线方向与黑洞方向的夹角
+    float angle;
+
+    /**
+     * 由相机位置和光线方向建立平面基
+     */
+    void set(RayMarchRenderer.FrameState frame, float dirX, float dirY, float dirZ) {
+        e1x = frame.camX - frame.holeX;
+        e1y = frame.camY - frame.holeY;
+        e1z = frame.camZ - frame.holeZ;
+        distance = (float) Math.sqrt(e1x * e1x + e1y * e1y + e1z * e1z);
+        e1x /= distance;
+        e1y /= distance;
+        e1z /= distance;
+
+        float cosAngle = clamp(-(dirX * e1x + dirY * e1y + dirZ * e1z), -1.0f, 1.0f);
+        angle = (float) Math.acos(cosAngle);
+        e2x = dirX + cosAngle * e1x;
+        e2y = dirY + cosAngle * e1y;
+        e2z = dirZ + cosAngle * e1z;
+        float e2Length = (float) Math.sqrt(e2x * e2x + e2y * e2y + e2z * e2z);
+        if (e2Length < 1e-6f) {
+            // 径向光线：平面任取
+            e2x = -e1z;
+            e2y = 0.0f;
+            e2z = e1x;
+            e2Length = (float) Math.sqrt(e2x * e2x + e2z * e2z);
+            if (e2Length < 1e-6f) {
+                e2x = 1.0f;
+                e2Length = 1.0f;
+            }
+        }
+        e2x /= e2Length;
+        e2y /= e2Length;
+        e2z /= e2Length;
+    }
+
+    /**
+     * 平面与盘面（黑洞所在水平面）交线在[0, π)内的角度；两平面重合时返回NaN
+     * 轨迹每扫过π与盘面相交一次
+     */
+    float nodePhase() {
+        if (Math.abs(e1y) + Math.abs(e2y) <= 1e-6f) {
+            return Float.NaN;
+        }
+        float node = (float) Math.atan2(-e1y, e2y);
+        if (node < 0.0f) {
+            node += (float) Math.PI;
+        }
+        return node;
+    }
+
+    /**
+     * 平面内角度对应的世界空间方向
+     */
+    float directionX(float phase) {
+        return (float) Math.cos(phase) * e1x + (float) Math.sin(phase) * e2x;
+    }
+
+    float directionY(float phase) {
+        return (float) Math.cos(phase) * e1y + (float) Math.sin(phase) * e2y;
+    }
+
+    float directionZ(float phase) {
+        return (float) Math.cos(phase) * e1z + (float) Math.sin(phase) * e2z;
+    }
+}
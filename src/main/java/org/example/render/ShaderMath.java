@@ -0,0 +1,84 @@
+package org.example.render;
+
+/**
+ * GLSL内建函数及噪声函数的Java实现
+ * 与fragment_shader.glsl中的hash/noise/fbm保持相同的计算顺序，保证CPU与GPU结果一致
+ */
+public final class ShaderMath {
+
+    private ShaderMath() {
+    }
+
+    /**
+     * GLSL fract()
+     */
+    public static float fract(float x) {
+        return x - (float) Math.floor(x);
+    }
+
+    /**
+     * GLSL mix() - 不对插值参数做截断
+     */
+    public static float mix(float a, float b, float t) {
+        return a * (1.0f - t) + b * t;
+    }
+
+    /**
+     * GLSL clamp()
+     */
+    public static float clamp(float x, float min, float max) {
+        return Math.min(Math.max(x, min), max);
+    }
+
+    /**
+     * GLSL smoothstep()
+     */
+    public static float smoothstep(float edge0, float edge1, float x) {
+        float t = clamp((x - edge0) / (edge1 - edge0), 0.0f, 1.0f);
+        return t * t * (3.0f - 2.0f * t);
+    }
+
+    /**
+     * 哈希函数 - 对应着色器中的hash(vec2)
+     */
+    public static float hash(float x, float y) {
+        float a = (float) Math.sin(17.0f * x + y * 0.1f);
+        float b = 0.1f + Math.abs((float) Math.sin(y * 13.0f + x));
+        return fract(1e4f * a * b);
+    }
+
+    /**
+     * 2D值噪声 - 对应着色器中的noise(vec2)
+     */
+    public static float noise(float x, float y) {
+        float ix = (float) Math.floor(x);
+        float iy = (float) Math.floor(y);
+        float fx = x - ix;
+        float fy = y - iy;
+        fx = fx * fx * (3.0f - 2.0f * fx);
+        fy = fy * fy * (3.0f - 2.0f * fy);
+
+        float a = hash(ix, iy);
+        float b = hash(ix + 1.0f, iy);
+        float c = hash(ix, iy + 1.0f);
+        float d = hash(ix + 1.0f, iy + 1.0f);
+
+        return mix(mix(a, b, fx), mix(c, d, fx), fy);
+    }
+
+    /**
+     * 分形布朗运动 - 对应着色器中的fbm(vec2)，4个倍频程
+     */
+    public static float fbm(float x, float y) {
+        float value = 0.0f;
+        float amplitude = 0.5f;
+        float frequency = 1.0f;
+
+        for (int i = 0; i < 4; i++) {
+            value += amplitude * noise(frequency * x, frequency * y);
+            amplitude *= 0.5f;
+            frequency *= 2.0f;
+        }
+        return value;
+    }
+}
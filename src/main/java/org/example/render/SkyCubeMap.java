@@ -0,0 +1,206 @@
+package org.example.render;
+
+import java.util.stream.IntStream;
+
+import static org.example.render.ShaderMath.mix;
+
+/**
+ * 预滤波的星空立方体贴图
+ * 启动时按纹素中心方向把星表烘焙进6个面的RGB纹理（纹素张角作为星像大小，相当于按纹素做了预滤波），
+ * 再逐级2x2平均生成mipmap。逃逸光线按出射方向和像素张角选择mip级别做三线性采样，
+ * 远处细小的星点不会闪烁，每条光线的背景代价固定为8个纹素的读取
+ */
+public class SkyCubeMap {
+    public static final int DEFAULT_FACE_SIZE = 512;
+
+    private final int faceSize;
+    // 第k级每个面的边长为faceSize >> k，纹素按(面, 行, 列)排列，每个纹素3个float
+    private final float[][] levels;
+
+    /**
+     * 构造函数 - 烘焙星表
+     *
+     * @param faceSize 最高级每个面的边长（2的幂），纹素张角接近输出像素张角时画面最清晰
+     * @param catalog  星表
+     */
+    public SkyCubeMap(int faceSize, StarCatalog catalog) {
+        if (faceSize <= 0 || Integer.bitCount(faceSize) != 1) {
+            throw new IllegalArgumentException("Invalid cube map face size: " + faceSize);
+        }
+        this.faceSize = faceSize;
+        int levelCount = Integer.numberOfTrailingZeros(faceSize) + 1;
+        this.levels = new float[levelCount][];
+        for (int level = 0; level < levelCount; level++) {
+            int size = faceSize >> level;
+            levels[level] = new float[6 * size * size * 3];
+        }
+        bake(catalog);
+        for (int level = 1; level < levelCount; level++) {
+            downsample(level);
+        }
+    }
+
+    /**
+     * 烘焙最高级：每个纹素取中心方向附近恒星的光，星像大小为该纹素的张角
+     */
+    private void bake(StarCatalog catalog) {
+        float[] texels = levels[0];
+        float texelSize = 2.0f / faceSize;
+        IntStream.range(0, 6 * faceSize).parallel().forEach(faceRow -> {
+            int face = faceRow / faceSize;
+            float v = ((faceRow % faceSize) + 0.5f) * texelSize - 1.0f;
+            float[] direction = new float[3];
+            for (int column = 0; column < faceSize; column++) {
+                float u = (column + 0.5f) * texelSize - 1.0f;
+                faceDirection(face, u, v, direction);
+                float texelAngle = texelSize / (1.0f + u * u + v * v);
+                catalog.accumulate(direction[0], direction[1], direction[2], texelAngle,
+                        texels, (faceRow * faceSize + column) * 3);
+            }
+        });
+    }
+
+    /**
+     * 由上一级2x2平均生成一级mipmap
+     */
+    private void downsample(int level) {
+        float[] source = levels[level - 1];
+        float[] target = levels[level];
+        int sourceSize = faceSize >> (level - 1);
+        int size = faceSize >> level;
+        IntStream.range(0, 6 * size).parallel().forEach(faceRow -> {
+            int face = faceRow / size;
+            int row = faceRow % size;
+            int top = (face * sourceSize + 2 * row) * sourceSize;
+            int bottom = top + sourceSize;
+            for (int column = 0; column < size; column++) {
+                int a = (top + 2 * column) * 3;
+                int b = (bottom + 2 * column) * 3;
+                int t = (faceRow * size + column) * 3;
+                for (int c = 0; c < 3; c++) {
+                    target[t + c] = 0.25f * (source[a + c] + source[a + 3 + c] + source[b + c] + source[b + 3 + c]);
+                }
+            }
+        });
+    }
+
+    /**
+     * 面内坐标对应的方向（未归一化），与StarCatalog的分面方式相同
+     */
+    private static void faceDirection(int face, float u, float v, float[] out) {
+        float sign = (face & 1) == 0 ? 1.0f : -1.0f;
+        switch (face >> 1) {
+            case 0:
+                out[0] = sign;
+                out[1] = u;
+                out[2] = v;
+                break;
+            case 1:
+                out[0] = u;
+                out[1] = sign;
+                out[2] = v;
+                break;
+            default:
+                out[0] = u;
+                out[1] = v;
+                out[2] = sign;
+                break;
+        }
+    }
+
+    /**
+     * 按方向采样并累加到out
+     *
+     * @param pixelAngle 像素的张角（弧度），决定mip级别
+     */
+    public void sample(float dx, float dy, float dz, float pixelAngle, float[] out, int offset) {
+        float ax = Math.abs(dx);
+        float ay = Math.abs(dy);
+        float az = Math.abs(dz);
+        int face;
+        float u;
+        float v;
+        if (ax >= ay && ax >= az) {
+            if (!(ax > 0.0f)) {
+                return;
+            }
+            face = dx >= 0.0f ? 0 : 1;
+            u = dy / ax;
+            v = dz / ax;
+        } else if (ay >= az) {
+            face = dy >= 0.0f ? 2 : 3;
+            u = dx / ay;
+            v = dz / ay;
+        } else {
+            face = dz >= 0.0f ? 4 : 5;
+            u = dx / az;
+            v = dy / az;
+        }
+
+        // 像素张角与该处最高级纹素张角之比的对数即mip级别
+        float texelAngle = 2.0f / faceSize / (1.0f + u * u + v * v);
+        float lod = (float) (Math.log(Math.max(pixelAngle / texelAngle, 1.0f)) / Math.log(2.0));
+        int maxLevel = levels.length - 1;
+        if (lod >= maxLevel) {
+            sampleLevel(maxLevel, face, u, v, 1.0f, out, offset);
+            return;
+        }
+        int level = (int) lod;
+        float blend = lod - level;
+        sampleLevel(level, face, u, v, 1.0f - blend, out, offset);
+        if (blend > 0.0f) {
+            sampleLevel(level + 1, face, u, v, blend, out, offset);
+        }
+    }
+
+    /**
+     * 双线性采样一级纹理（面边缘处截断，不跨面插值）
+     */
+    private void sampleLevel(int level, int face, float u, float v, float weight, float[] out, int offset) {
+        int size = faceSize >> level;
+        float[] texels = levels[level];
+
+        // 纹素中心位于(i + 0.5) / size
+        float tx = (u + 1.0f) * 0.5f * size - 0.5f;
+        float ty = (v + 1.0f) * 0.5f * size - 0.5f;
+        float floorX = (float) Math.floor(tx);
+        float floorY = (float) Math.floor(ty);
+        float fx = tx - floorX;
+        float fy = ty - floorY;
+
+        int x0 = Math.max((int) floorX, 0);
+        int y0 = Math.max((int) floorY, 0);
+        int x1 = Math.min((int) floorX + 1, size - 1);
+        int y1 = Math.min((int) floorY + 1, size - 1);
+        int row0 = (face * size + y0) * size;
+        int row1 = (face * size + y1) * size;
+        int a = (row0 + x0) * 3;
+        int b = (row0 + x1) * 3;
+        int c = (row1 + x0) * 3;
+        int d = (row1 + x1) * 3;
+
+        for (int channel = 0; channel < 3; channel++) {
+            out[offset + channel] += weight * mix(mix(texels[a + channel], texels[b + channel], fx),
+                    mix(texels[c + channel], texels[d + channel], fx), fy);
+        }
+    }
+
+    public int getFaceSize() {
+        return faceSize;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * 纹理占用的字节数
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (float[] level : levels) {
+            bytes += (long) level.length * Float.BYTES;
+        }
+        return bytes;
+    }
+}
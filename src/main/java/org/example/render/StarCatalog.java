@@ -0,0 +1,306 @@
+package org.example.render;
+
+import java.util.SplittableRandom;
+
+/**
+ * 程序化星表
+ * 按种子生成均匀分布在天球上的恒星（亮度服从欧氏空间的幂律计数，颜色随温度变化），数据按基本类型数组存放；
+ * 天球按立方体贴图划分为6×n×n个天区，计数排序后每个天区的恒星连续存放，平均每个天区只有几颗，
+ * 按方向查找附近恒星只需访问常数个天区。查找只取决于方向，透镜偏折后的出射方向自然得到正确且逐帧稳定的星像
+ */
+public class StarCatalog {
+    public static final int DEFAULT_STAR_COUNT = 2_000_000;
+
+    // 每个天区的平均恒星数
+    private static final int STARS_PER_CELL = 4;
+    // 最暗恒星的亮度和亮度上限
+    private static final float MIN_FLUX = 0.03f;
+    private static final float MAX_FLUX = 6.0f;
+    // 点扩散函数：高斯σ和截断半径（像素张角的倍数）
+    private static final float PSF_SIGMA = 0.5f;
+    private static final float PSF_CUTOFF = 1.5f;
+    // 截断处的高斯值：权重减去该值后在截断半径处连续降为0，恒星移入移出查询圆时不会跳变
+    private static final float PSF_FLOOR =
+            (float) Math.exp(-PSF_CUTOFF * PSF_CUTOFF / (2.0 * PSF_SIGMA * PSF_SIGMA));
+
+    private final int count;
+    private final int resolution;
+    private final float halfResolution;
+    // 天区c的恒星位于[cellStart[c], cellStart[c + 1])
+    private final int[] cellStart;
+    private final float[] dirX;
+    private final float[] dirY;
+    private final float[] dirZ;
+    // 线性颜色（已乘亮度）
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+    // 跨棱查询的已访问天区列表，每个线程一份并按需扩容，查询不分配内存
+    private final ThreadLocal<int[]> visitedCells = ThreadLocal.withInitial(() -> new int[64]);
+
+    /**
+     * 构造函数 - 生成星表并建立天区索引
+     *
+     * @param count 恒星数
+     * @param seed  随机数种子，相同种子得到相同的星表
+     */
+    public StarCatalog(int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid star count: " + count);
+        }
+        this.count = count;
+        this.resolution = Math.max(1, (int) Math.round(Math.sqrt(count / (6.0 * STARS_PER_CELL))));
+        this.halfResolution = resolution * 0.5f;
+        int cells = 6 * resolution * resolution;
+        this.cellStart = new int[cells + 1];
+        this.dirX = new float[count];
+        this.dirY = new float[count];
+        this.dirZ = new float[count];
+        this.red = new float[count];
+        this.green = new float[count];
+        this.blue = new float[count];
+
+        // 生成序列是确定的：第一遍只统计各天区的恒星数，第二遍重新生成并直接写入排序后的位置，无需临时数组
+        float[] star = new float[6];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            generate(random, star);
+            cellStart[cellOf(star[0], star[1], star[2]) + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cursor = new int[cells];
+        System.arraycopy(cellStart, 0, cursor, 0, cells);
+        random = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            generate(random, star);
+            int slot = cursor[cellOf(star[0], star[1], star[2])]++;
+            dirX[slot] = star[0];
+            dirY[slot] = star[1];
+            dirZ[slot] = star[2];
+            red[slot] = star[3];
+            green[slot] = star[4];
+            blue[slot] = star[5];
+        }
+    }
+
+    /**
+     * 生成一颗恒星：方向、颜色×亮度
+     */
+    private static void generate(SplittableRandom random, float[] star) {
+        // 球面均匀分布
+        double z = random.nextDouble() * 2.0 - 1.0;
+        double phi = random.nextDouble() * 2.0 * Math.PI;
+        double ring = Math.sqrt(1.0 - z * z);
+        star[0] = (float) (ring * Math.cos(phi));
+        star[1] = (float) z;
+        star[2] = (float) (ring * Math.sin(phi));
+
+        // 亮于F的恒星数 ∝ F^-1.5：大部分恒星很暗，少数很亮
+        double u = 1.0 - random.nextDouble();
+        float flux = (float) Math.min(MIN_FLUX * Math.pow(u, -2.0 / 3.0), MAX_FLUX);
+
+        // 冷星偏橙、热星偏蓝白
+        float t = (float) random.nextDouble();
+        star[3] = flux * ShaderMath.mix(1.0f, 0.75f, t);
+        star[4] = flux * ShaderMath.mix(0.78f, 0.85f, t);
+        star[5] = flux * ShaderMath.mix(0.55f, 1.0f, t);
+    }
+
+    /**
+     * 方向所在的天区（立方体贴图：主轴决定面，另外两个分量除以主轴分量得到面内坐标）
+     */
+    private int cellOf(float x, float y, float z) {
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        float az = Math.abs(z);
+        int face;
+        float u;
+        float v;
+        if (ax >= ay && ax >= az) {
+            face = x >= 0.0f ? 0 : 1;
+            u = y / ax;
+            v = z / ax;
+        } else if (ay >= az) {
+            face = y >= 0.0f ? 2 : 3;
+            u = x / ay;
+            v = z / ay;
+        } else {
+            face = z >= 0.0f ? 4 : 5;
+            u = x / az;
+            v = y / az;
+        }
+        return (face * resolution + cellIndex(v)) * resolution + cellIndex(u);
+    }
+
+    private int cellIndex(float coordinate) {
+        int index = (int) ((coordinate + 1.0f) * halfResolution);
+        return Math.max(0, Math.min(index, resolution - 1));
+    }
+
+    /**
+     * 把方向附近恒星的光累加到out（线性颜色）
+     *
+     * @param pixelAngle 像素的张角（弧度），决定星像大小
+     */
+    public void accumulate(float dx, float dy, float dz, float pixelAngle, float[] out, int offset) {
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (!(length > 0.0f) || count == 0) {
+            return;
+        }
+        dx /= length;
+        dy /= length;
+        dz /= length;
+        float radius = PSF_CUTOFF * pixelAngle;
+        float sigma = PSF_SIGMA * pixelAngle;
+        float inverseTwoSigma2 = 1.0f / (2.0f * sigma * sigma);
+        float radius2 = radius * radius;
+
+        float ax = Math.abs(dx);
+        float ay = Math.abs(dy);
+        float az = Math.abs(dz);
+        int face;
+        float major;
+        float u;
+        float v;
+        if (ax >= ay && ax >= az) {
+            face = dx >= 0.0f ? 0 : 1;
+            major = ax;
+            u = dy / ax;
+            v = dz / ax;
+        } else if (ay >= az) {
+            face = dy >= 0.0f ? 2 : 3;
+            major = ay;
+            u = dx / ay;
+            v = dz / ay;
+        } else {
+            face = dz >= 0.0f ? 4 : 5;
+            major = az;
+            u = dx / az;
+            v = dy / az;
+        }
+
+        // 面内坐标对角度的导数不超过1 / major²，据此得到查询圆在面内的保守半径
+        float extent = radius / (major * major);
+        int u0 = (int) Math.floor((u - extent + 1.0f) * halfResolution);
+        int u1 = (int) Math.floor((u + extent + 1.0f) * halfResolution);
+        int v0 = (int) Math.floor((v - extent + 1.0f) * halfResolution);
+        int v1 = (int) Math.floor((v + extent + 1.0f) * halfResolution);
+        if (u0 >= 0 && v0 >= 0 && u1 < resolution && v1 < resolution) {
+            for (int row = v0; row <= v1; row++) {
+                int base = (face * resolution + row) * resolution;
+                for (int column = u0; column <= u1; column++) {
+                    accumulateCell(base + column, dx, dy, dz, radius2, inverseTwoSigma2, out, offset);
+                }
+            }
+            return;
+        }
+
+        // 查询圆跨越立方体的棱：在切平面内取样若干方向，分别求天区并去重
+        float tx;
+        float ty;
+        float tz;
+        if (Math.abs(dy) < 0.9f) {
+            // t1 = normalize(d × (0, 1, 0))
+            tx = -dz;
+            ty = 0.0f;
+            tz = dx;
+        } else {
+            // t1 = normalize(d × (1, 0, 0))
+            tx = 0.0f;
+            ty = dz;
+            tz = -dy;
+        }
+        float tangentLength = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+        tx /= tangentLength;
+        ty /= tangentLength;
+        tz /= tangentLength;
+        float bx = dy * tz - dz * ty;
+        float by = dz * tx - dx * tz;
+        float bz = dx * ty - dy * tx;
+
+        // 取样间距取最小天区张角（棱角处约为面中心的1/3）的一半，并向外多取一圈，保证与查询圆相交的天区都被取到
+        float spacing = 1.0f / resolution / 3.0f;
+        int steps = (int) Math.ceil(radius / spacing) + 1;
+        int samples = (2 * steps + 1) * (2 * steps + 1);
+        int[] visited = visitedCells.get();
+        if (visited.length < samples) {
+            visited = new int[samples];
+            visitedCells.set(visited);
+        }
+        int visitedCount = 0;
+        for (int j = -steps; j <= steps; j++) {
+            for (int i = -steps; i <= steps; i++) {
+                float a = spacing * i;
+                float b = spacing * j;
+                int cell = cellOf(dx + tx * a + bx * b, dy + ty * a + by * b, dz + tz * a + bz * b);
+                boolean seen = false;
+                for (int k = 0; k < visitedCount && !seen; k++) {
+                    seen = visited[k] == cell;
+                }
+                if (!seen) {
+                    visited[visitedCount++] = cell;
+                    accumulateCell(cell, dx, dy, dz, radius2, inverseTwoSigma2, out, offset);
+                }
+            }
+        }
+    }
+
+    private void accumulateCell(int cell, float dx, float dy, float dz, float radius2, float inverseTwoSigma2,
+                                float[] out, int offset) {
+        for (int s = cellStart[cell], end = cellStart[cell + 1]; s < end; s++) {
+            float ex = dirX[s] - dx;
+            float ey = dirY[s] - dy;
+            float ez = dirZ[s] - dz;
+            // 小角度下弦长即角距离
+            float distance2 = ex * ex + ey * ey + ez * ez;
+            if (distance2 < radius2) {
+                float weight = ((float) Math.exp(-distance2 * inverseTwoSigma2) - PSF_FLOOR) / (1.0f - PSF_FLOOR);
+                out[offset] += red[s] * weight;
+                out[offset + 1] += green[s] * weight;
+                out[offset + 2] += blue[s] * weight;
+            }
+        }
+    }
+
+    // ========== Getter方法 ==========
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 每个立方体面的天区边长
+     */
+    public int getResolution() {
+        return resolution;
+    }
+
+    /**
+     * 第i颗恒星的单位方向和线性颜色（按天区排序后的顺序）
+     */
+    public float getDirectionX(int i) {
+        return dirX[i];
+    }
+
+    public float getDirectionY(int i) {
+        return dirY[i];
+    }
+
+    public float getDirectionZ(int i) {
+        return dirZ[i];
+    }
+
+    public float getRed(int i) {
+        return red[i];
+    }
+
+    public float getGreen(int i) {
+        return green[i];
+    }
+
+    public float getBlue(int i) {
+        return blue[i];
+    }
+}
@@ -0,0 +1,391 @@
+package org.example.render;
+
+import org.example.core.Camera;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 带时间重投影缓存的CPU渲染器
+ * 每个像素保存上一帧光线的结局（逃逸方向、吸积盘命中的(r, φ)或落入视界），
+ * 新一帧先把视线按绕黑洞的方位角旋转后用上一帧相机投影回历史缓冲区，
+ * 周围历史样本一致时直接复用结局并按当前时间重新着色，误差超过阈值的像素才重新求解光线
+ */
+public class TemporalRenderer {
+    // 每个任务至少处理的行数
+    private static final int ROWS_PER_TASK = 8;
+
+    private final RayMarchRenderer renderer;
+    private final int width;
+    private final int height;
+    private final float[] pixels;
+
+    // 双缓冲历史：结局、年龄（帧数）和结局参数
+    // 逃逸时(a, b, c)为出射方向，吸积盘命中时为(r, φ, 离盘面高度)，d为吸积盘的频移因子
+    private byte[] outcome;
+    private byte[] age;
+    private float[] a;
+    private float[] b;
+    private float[] c;
+    private float[] d;
+    private byte[] previousOutcome;
+    private byte[] previousAge;
+    private float[] previousA;
+    private float[] previousB;
+    private float[] previousC;
+    private float[] previousD;
+
+    // 重投影误差阈值（出射方向按弧度，吸积盘按相对半径和方位角弧度）
+    private float threshold = 0.05f;
+    // 历史样本最多复用的帧数，超过后强制重新求解，避免插值误差累积
+    private int maxAge = 8;
+
+    private RayMarchRenderer.FrameState previousFrame;
+    private final AtomicInteger remarched = new AtomicInteger();
+
+    /**
+     * 构造函数 - 复用渲染器的参数和线程池
+     */
+    public TemporalRenderer(RayMarchRenderer renderer) {
+        this.renderer = renderer;
+        this.width = renderer.getWidth();
+        this.height = renderer.getHeight();
+        int count = width * height;
+        this.pixels = new float[count * 3];
+        this.outcome = new byte[count];
+        this.age = new byte[count];
+        this.a = new float[count];
+        this.b = new float[count];
+        this.c = new float[count];
+        this.d = new float[count];
+        this.previousOutcome = new byte[count];
+        this.previousAge = new byte[count];
+        this.previousA = new float[count];
+        this.previousB = new float[count];
+        this.previousC = new float[count];
+        this.previousD = new float[count];
+    }
+
+    /**
+     * 渲染一帧
+     *
+     * @return 像素数组（与getPixels()相同），格式同RayMarchRenderer.render()
+     */
+    public float[] render(Camera camera, float time) {
+        RayMarchRenderer.FrameState frame = renderer.prepareFrame(camera, time);
+        Reprojection reprojection = previousFrame != null && sameScene(previousFrame, frame)
+                ? new Reprojection(previousFrame, frame)
+                : null;
+
+        remarched.set(0);
+        renderer.getPool().invoke(new RowTask(frame, reprojection, 0, height));
+        swapHistory();
+        previousFrame = frame;
+        return pixels;
+    }
+
+    /**
+     * 清空历史，下一帧全部重新求解
+     */
+    public void invalidate() {
+        previousFrame = null;
+    }
+
+    /**
+     * 黑洞和吸积盘参数或求解方式改变后历史不再有效
+     */
+    private static boolean sameScene(RayMarchRenderer.FrameState previous, RayMarchRenderer.FrameState current) {
+        return previous.mass == current.mass
+                && previous.eventHorizonRadius == current.eventHorizonRadius
+                && previous.innerDiskRadius == current.innerDiskRadius
+                && previous.outerDiskRadius == current.outerDiskRadius
+                && previous.holeX == current.holeX
+                && previous.holeY == current.holeY
+                && previous.holeZ == current.holeZ
+                && previous.deflectionTable == current.deflectionTable
+                && previous.geodesicIntegrator == current.geodesicIntegrator
+                && previous.kerrIntegrator == current.kerrIntegrator
+                && previous.orbitTable == current.orbitTable;
+    }
+
+    private void swapHistory() {
+        byte[] bytes = previousOutcome;
+        previousOutcome = outcome;
+        outcome = bytes;
+        bytes = previousAge;
+        previousAge = age;
+        age = bytes;
+        float[] floats = previousA;
+        previousA = a;
+        a = floats;
+        floats = previousB;
+        previousB = b;
+        b = floats;
+        floats = previousC;
+        previousC = c;
+        c = floats;
+        floats = previousD;
+        previousD = d;
+        d = floats;
+    }
+
+    /**
+     * 渲染一行像素
+     */
+    private void renderRow(RayMarchRenderer.FrameState frame, Reprojection reprojection, int py) {
+        RayMarchRenderer.RayScratch scratch = renderer.scratch();
+        float[] direction = scratch.direction;
+        int count = 0;
+        for (int px = 0; px < width; px++) {
+            int index = py * width + px;
+            float x = px + 0.5f;
+            float y = py + 0.5f;
+
+            if (reprojection != null && renderer.primaryRay(frame, x, y, direction)) {
+                int sampleAge = reproject(frame, reprojection, direction, scratch);
+                if (sampleAge >= 0) {
+                    renderer.shadeRecorded(frame, scratch, x, y, pixels, index * 3);
+                    storeHistory(frame, index, scratch, sampleAge + 1);
+                    continue;
+                }
+            }
+
+            renderer.sample(frame, scratch, x, y, pixels, index * 3);
+            // 首帧按像素错开年龄，使强制刷新均匀分布到之后的各帧
+            storeHistory(frame, index, scratch, reprojection != null ? 0 : (index * 7) % Math.max(maxAge, 1));
+            if (scratch.outcome != RayMarchRenderer.RayScratch.MISSED) {
+                count++;
+            }
+        }
+        remarched.addAndGet(count);
+    }
+
+    /**
+     * 从历史缓冲区重投影当前视线的结局
+     *
+     * @param direction 当前视线方向（世界空间）
+     * @param hit       成功时写入重投影得到的结局
+     * @return 所用历史样本中最老的年龄；误差超过阈值或历史样本过老时返回-1
+     */
+    private int reproject(RayMarchRenderer.FrameState frame, Reprojection reprojection, float[] direction,
+                          RayMarchRenderer.RayScratch hit) {
+        RayMarchRenderer.FrameState previous = reprojection.previous;
+
+        // 绕黑洞竖直轴旋转到上一帧的相机方位
+        float dx = reprojection.cos * direction[0] - reprojection.sin * direction[2];
+        float dy = direction[1];
+        float dz = reprojection.sin * direction[0] + reprojection.cos * direction[2];
+
+        // 用上一帧相机基向量投影到图像平面
+        float forward = dx * previous.frontX + dy * previous.frontY + dz * previous.frontZ;
+        if (forward <= 0.0f) {
+            return -1;
+        }
+        float sx = (dx * previous.rightX + dy * previous.rightY + dz * previous.rightZ)
+                / (forward * previous.tanHalfFov * previous.aspect);
+        float sy = (dx * previous.upX + dy * previous.upY + dz * previous.upZ) / (forward * previous.tanHalfFov);
+        float hx = (sx + 1.0f) * 0.5f * width - 0.5f;
+        float hy = (1.0f - sy) * 0.5f * height - 0.5f;
+        if (hx < 0.0f || hy < 0.0f || hx > width - 1 || hy > height - 1) {
+            return -1;
+        }
+
+        // 双线性足迹内的四个历史样本必须结局相同且足够新
+        int x0 = Math.min((int) hx, width - 2);
+        int y0 = Math.min((int) hy, height - 2);
+        float fx = hx - x0;
+        float fy = hy - y0;
+        int i00 = y0 * width + x0;
+        int i10 = i00 + 1;
+        int i01 = i00 + width;
+        int i11 = i01 + 1;
+        byte kind = previousOutcome[i00];
+        if (kind == RayMarchRenderer.RayScratch.MISSED
+                || previousOutcome[i10] != kind || previousOutcome[i01] != kind || previousOutcome[i11] != kind) {
+            return -1;
+        }
+        int oldest = Math.max(Math.max(previousAge[i00], previousAge[i10]), Math.max(previousAge[i01], previousAge[i11]));
+        if (oldest >= maxAge) {
+            return -1;
+        }
+
+        float w00 = (1.0f - fx) * (1.0f - fy);
+        float w10 = fx * (1.0f - fy);
+        float w01 = (1.0f - fx) * fy;
+        float w11 = fx * fy;
+
+        if (kind == RayMarchRenderer.RayScratch.CAPTURED) {
+            hit.outcome = RayMarchRenderer.RayScratch.CAPTURED;
+            return oldest;
+        }
+
+        if (kind == RayMarchRenderer.RayScratch.ESCAPED) {
+            // 出射方向的角度差近似为 sqrt(2(1 - cos))
+            float minDot = Math.min(Math.min(dot(i00, i10), dot(i00, i01)), dot(i00, i11));
+            float spread = (float) Math.sqrt(Math.max(2.0f * (1.0f - minDot), 0.0f));
+            if (spread + reprojection.error > threshold) {
+                return -1;
+            }
+            float ex = w00 * previousA[i00] + w10 * previousA[i10] + w01 * previousA[i01] + w11 * previousA[i11];
+            float ey = w00 * previousB[i00] + w10 * previousB[i10] + w01 * previousB[i01] + w11 * previousB[i11];
+            float ez = w00 * previousC[i00] + w10 * previousC[i10] + w01 * previousC[i01] + w11 * previousC[i11];
+            float invLength = 1.0f / (float) Math.sqrt(ex * ex + ey * ey + ez * ez);
+            ex *= invLength;
+            ey *= invLength;
+            ez *= invLength;
+            // 旋转回当前帧
+            hit.recordEscape(reprojection.cos * ex + reprojection.sin * ez, ey,
+                    -reprojection.sin * ex + reprojection.cos * ez);
+            return oldest;
+        }
+
+        // 吸积盘（以黑洞为中心的极坐标）：方位角相对第一个样本展开，避免跨越±π
+        float r00 = previousA[i00];
+        float phi00 = previousB[i00];
+        float dPhi10 = wrapAngle(previousB[i10] - phi00);
+        float dPhi01 = wrapAngle(previousB[i01] - phi00);
+        float dPhi11 = wrapAngle(previousB[i11] - phi00);
+        float radiusSpread = Math.max(Math.max(Math.abs(previousA[i10] - r00), Math.abs(previousA[i01] - r00)),
+                Math.abs(previousA[i11] - r00)) / r00;
+        float phiSpread = Math.max(Math.max(Math.abs(dPhi10), Math.abs(dPhi01)), Math.abs(dPhi11));
+        if (Math.max(radiusSpread, phiSpread) + reprojection.error > threshold) {
+            return -1;
+        }
+        float radius = w00 * r00 + w10 * previousA[i10] + w01 * previousA[i01] + w11 * previousA[i11];
+        float phi = phi00 + w10 * dPhi10 + w01 * dPhi01 + w11 * dPhi11 - reprojection.azimuth;
+        float height = w00 * previousC[i00] + w10 * previousC[i10] + w01 * previousC[i01] + w11 * previousC[i11];
+        // 频移因子只取决于半径和光子角动量，绕竖直轴旋转时都不变
+        float redshift = w00 * previousD[i00] + w10 * previousD[i10] + w01 * previousD[i01] + w11 * previousD[i11];
+        hit.recordDisk(frame.holeX + radius * (float) Math.cos(phi),
+                frame.holeZ + radius * (float) Math.sin(phi), height, redshift);
+        return oldest;
+    }
+
+    private float dot(int i, int j) {
+        return previousA[i] * previousA[j] + previousB[i] * previousB[j] + previousC[i] * previousC[j];
+    }
+
+    private static float wrapAngle(float angle) {
+        if (angle > Math.PI) {
+            return angle - 2.0f * (float) Math.PI;
+        }
+        if (angle < -Math.PI) {
+            return angle + 2.0f * (float) Math.PI;
+        }
+        return angle;
+    }
+
+    /**
+     * 写入当前帧的历史
+     */
+    private void storeHistory(RayMarchRenderer.FrameState frame, int index, RayMarchRenderer.RayScratch hit,
+                              int sampleAge) {
+        outcome[index] = (byte) hit.outcome;
+        age[index] = (byte) Math.min(sampleAge, Byte.MAX_VALUE);
+        if (hit.outcome == RayMarchRenderer.RayScratch.ESCAPED) {
+            a[index] = hit.exitX;
+            b[index] = hit.exitY;
+            c[index] = hit.exitZ;
+        } else if (hit.outcome == RayMarchRenderer.RayScratch.DISK) {
+            float relativeX = hit.diskX - frame.holeX;
+            float relativeZ = hit.diskZ - frame.holeZ;
+            a[index] = (float) Math.sqrt(relativeX * relativeX + relativeZ * relativeZ);
+            b[index] = (float) Math.atan2(relativeZ, relativeX);
+            c[index] = hit.diskHeight;
+            d[index] = hit.diskRedshift;
+        }
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public float[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * 上一帧重新求解光线的像素数（不含代理球体之外的像素）
+     */
+    public int getLastFrameRemarched() {
+        return remarched.get();
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(int maxAge) {
+        this.maxAge = Math.min(maxAge, Byte.MAX_VALUE);
+    }
+
+    /**
+     * 相邻两帧之间的光线对应关系
+     * 场景绕黑洞竖直轴对称（吸积盘在水平面内），相机绕该轴转过的方位角可以精确抵消；
+     * 相机到黑洞的距离和仰角变化无法抵消，计入整帧的基础误差
+     */
+    private static final class Reprojection {
+        final RayMarchRenderer.FrameState previous;
+        // 当前帧到上一帧的方位角旋转
+        final float azimuth;
+        final float cos;
+        final float sin;
+        final float error;
+
+        Reprojection(RayMarchRenderer.FrameState previous, RayMarchRenderer.FrameState current) {
+            this.previous = previous;
+
+            float px = previous.camX - previous.holeX;
+            float py = previous.camY - previous.holeY;
+            float pz = previous.camZ - previous.holeZ;
+            float cx = current.camX - current.holeX;
+            float cy = current.camY - current.holeY;
+            float cz = current.camZ - current.holeZ;
+            float previousDistance = (float) Math.sqrt(px * px + py * py + pz * pz);
+            float currentDistance = (float) Math.sqrt(cx * cx + cy * cy + cz * cz);
+
+            azimuth = (float) (Math.atan2(pz, px) - Math.atan2(cz, cx));
+            cos = (float) Math.cos(azimuth);
+            sin = (float) Math.sin(azimuth);
+
+            float elevationChange = (float) Math.abs(
+                    Math.asin(py / previousDistance) - Math.asin(cy / currentDistance));
+            error = elevationChange + Math.abs(currentDistance - previousDistance) / previousDistance;
+        }
+    }
+
+    /**
+     * 行任务 - 递归二分行区间
+     */
+    private final class RowTask extends RecursiveAction {
+        private final RayMarchRenderer.FrameState frame;
+        private final Reprojection reprojection;
+        private final int from;
+        private final int to;
+
+        RowTask(RayMarchRenderer.FrameState frame, Reprojection reprojection, int from, int to) {
+            this.frame = frame;
+            this.reprojection = reprojection;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int row = from; row < to; row++) {
+                    renderRow(frame, reprojection, row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(frame, reprojection, from, mid), new RowTask(frame, reprojection, mid, to));
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut八叉树
+ * 节点数据存放在扁平的基本类型数组中，八个子节点在数组中连续分配，每帧重建时复用数组；
+ * 叶节点最多容纳LEAF_CAPACITY个粒子，足够远的节点按质心近似为单个质点，每个粒子的引力计算为O(log N)。
+ * 构建完成后叶节点的粒子按深度优先顺序复制到连续数组，遍历时顺序访问内存；
+ * 按getBody()给出的顺序逐个计算时，相邻粒子访问的节点大体相同，缓存命中率高。
+ * 构建后只读，可由多个线程同时查询
+ */
+public class BarnesHutTree {
+    // 叶节点容量，超过时分裂
+    static final int LEAF_CAPACITY = 8;
+    // 最大深度：重合的粒子不再分裂，留在同一叶节点中
+    static final int MAX_DEPTH = 32;
+    // 遍历栈所需的长度
+    static final int STACK_SIZE = 7 * MAX_DEPTH + 8;
+    // 遍历用节点数据的步长：质心x/y/z、质量、边长
+    private static final int STRIDE = 5;
+
+    private float[] centerX = new float[0];
+    private float[] centerY = new float[0];
+    private float[] centerZ = new float[0];
+    private float[] halfSize = new float[0];
+    // 第一个子节点的下标，-1表示叶节点
+    private int[] firstChild = new int[0];
+    private int[] firstBody = new int[0];
+    private int[] bodyCount = new int[0];
+    private int nodeCount;
+    // 遍历时读取的节点数据交错存放，访问一个节点只需一次缓存行读取
+    private float[] nodeData = new float[0];
+
+    // 构建时叶节点内的粒子链表
+    private int[] nextBody = new int[0];
+    // 按深度优先顺序排列的粒子（坐标无效的粒子排在最后）及其坐标副本；叶节点的粒子为[leafStart, leafStart + bodyCount)
+    private int[] bodies = new int[0];
+    private float[] bodyX = new float[0];
+    private float[] bodyY = new float[0];
+    private float[] bodyZ = new float[0];
+    private int[] leafStart = new int[0];
+    private int[] walkStack = new int[STACK_SIZE];
+    private int size;
+    private float[] x;
+    private float[] y;
+    private float[] z;
+    private float particleMass;
+
+    /**
+     * 构建八叉树（坐标无效的粒子被跳过）
+     */
+    public void build(float[] x, float[] y, float[] z, int size, float particleMass) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.particleMass = particleMass;
+        this.size = size;
+        if (nextBody.length < size) {
+            int capacity = Math.max(size, nextBody.length * 2);
+            nextBody = new int[capacity];
+            bodies = new int[capacity];
+            bodyX = new float[capacity];
+            bodyY = new float[capacity];
+            bodyZ = new float[capacity];
+        }
+
+        // 根节点为包围全部粒子的立方体
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            if (isFinite(i)) {
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                minZ = Math.min(minZ, z[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+                maxZ = Math.max(maxZ, z[i]);
+            }
+        }
+
+        nodeCount = 0;
+        if (minX > maxX) {
+            allocateNode(0.0f, 0.0f, 0.0f, 1.0f);
+            summarize();
+            flatten();
+            return;
+        }
+        float half = Math.max(Math.max(maxX - minX, maxY - minY), maxZ - minZ) * 0.5f;
+        // 略微放大，保证最大坐标落在根节点内
+        half = half * 1.0001f + Float.MIN_NORMAL;
+        allocateNode((minX + maxX) * 0.5f, (minY + maxY) * 0.5f, (minZ + maxZ) * 0.5f, half);
+
+        for (int i = 0; i < size; i++) {
+            if (isFinite(i)) {
+                insert(i, 0, 0);
+            }
+        }
+        summarize();
+        flatten();
+    }
+
+    private boolean isFinite(int i) {
+        return Math.abs(x[i]) <= Float.MAX_VALUE && Math.abs(y[i]) <= Float.MAX_VALUE
+                && Math.abs(z[i]) <= Float.MAX_VALUE;
+    }
+
+    /**
+     * 从指定节点向下插入粒子
+     */
+    private void insert(int body, int node, int depth) {
+        while (firstChild[node] >= 0) {
+            node = firstChild[node] + octant(node, body);
+            depth++;
+        }
+        if (bodyCount[node] < LEAF_CAPACITY || depth >= MAX_DEPTH) {
+            nextBody[body] = firstBody[node];
+            firstBody[node] = body;
+            bodyCount[node]++;
+            return;
+        }
+
+        // 分裂叶节点并把原有粒子下移
+        split(node);
+        int moved = firstBody[node];
+        firstBody[node] = -1;
+        bodyCount[node] = 0;
+        while (moved >= 0) {
+            int following = nextBody[moved];
+            insert(moved, node, depth);
+            moved = following;
+        }
+        insert(body, node, depth);
+    }
+
+    private void split(int node) {
+        float quarter = halfSize[node] * 0.5f;
+        float cx = centerX[node];
+        float cy = centerY[node];
+        float cz = centerZ[node];
+        int first = nodeCount;
+        for (int octant = 0; octant < 8; octant++) {
+            allocateNode((octant & 1) != 0 ? cx + quarter : cx - quarter,
+                    (octant & 2) != 0 ? cy + quarter : cy - quarter,
+                    (octant & 4) != 0 ? cz + quarter : cz - quarter,
+                    quarter);
+        }
+        firstChild[node] = first;
+    }
+
+    private int octant(int node, int body) {
+        return (x[body] >= centerX[node] ? 1 : 0)
+                | (y[body] >= centerY[node] ? 2 : 0)
+                | (z[body] >= centerZ[node] ? 4 : 0);
+    }
+
+    private void allocateNode(float cx, float cy, float cz, float half) {
+        if (nodeCount == firstChild.length) {
+            int capacity = Math.max(64, nodeCount * 2);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            centerZ = Arrays.copyOf(centerZ, capacity);
+            halfSize = Arrays.copyOf(halfSize, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            firstBody = Arrays.copyOf(firstBody, capacity);
+            bodyCount = Arrays.copyOf(bodyCount, capacity);
+            leafStart = Arrays.copyOf(leafStart, capacity);
+            nodeData = Arrays.copyOf(nodeData, capacity * STRIDE);
+        }
+        int node = nodeCount++;
+        centerX[node] = cx;
+        centerY[node] = cy;
+        centerZ[node] = cz;
+        halfSize[node] = half;
+        firstChild[node] = -1;
+        firstBody[node] = -1;
+        bodyCount[node] = 0;
+    }
+
+    /**
+     * 自底向上累计各节点的质量和质心（子节点的下标总大于父节点，逆序遍历即可）
+     */
+    private void summarize() {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double sumX = 0.0;
+            double sumY = 0.0;
+            double sumZ = 0.0;
+            double total;
+            int child = firstChild[node];
+            if (child < 0) {
+                for (int body = firstBody[node]; body >= 0; body = nextBody[body]) {
+                    sumX += x[body];
+                    sumY += y[body];
+                    sumZ += z[body];
+                }
+                total = (double) bodyCount[node] * particleMass;
+                sumX *= particleMass;
+                sumY *= particleMass;
+                sumZ *= particleMass;
+            } else {
+                total = 0.0;
+                for (int c = child; c < child + 8; c++) {
+                    int data = c * STRIDE;
+                    double childMass = nodeData[data + 3];
+                    total += childMass;
+                    sumX += childMass * nodeData[data];
+                    sumY += childMass * nodeData[data + 1];
+                    sumZ += childMass * nodeData[data + 2];
+                }
+            }
+            int data = node * STRIDE;
+            nodeData[data + 3] = (float) total;
+            nodeData[data + 4] = 2.0f * halfSize[node];
+            if (total > 0.0) {
+                nodeData[data] = (float) (sumX / total);
+                nodeData[data + 1] = (float) (sumY / total);
+                nodeData[data + 2] = (float) (sumZ / total);
+            } else {
+                nodeData[data] = centerX[node];
+                nodeData[data + 1] = centerY[node];
+                nodeData[data + 2] = centerZ[node];
+            }
+        }
+    }
+
+    /**
+     * 按深度优先顺序把叶节点的粒子复制到连续数组
+     */
+    private void flatten() {
+        int cursor = 0;
+        int top = 0;
+        walkStack[top++] = 0;
+        while (top > 0) {
+            int node = walkStack[--top];
+            int child = firstChild[node];
+            if (child >= 0) {
+                // 逆序压栈，出栈顺序即八分体顺序
+                for (int c = child + 7; c >= child; c--) {
+                    walkStack[top++] = c;
+                }
+                continue;
+            }
+            leafStart[node] = cursor;
+            for (int body = firstBody[node]; body >= 0; body = nextBody[body]) {
+                bodies[cursor] = body;
+                bodyX[cursor] = x[body];
+                bodyY[cursor] = y[body];
+                bodyZ[cursor] = z[body];
+                cursor++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (!isFinite(i)) {
+                bodies[cursor++] = i;
+            }
+        }
+    }
+
+    /**
+     * 计算其他粒子对粒子i的引力加速度（不含引力常数），写入out[0..2]
+     *
+     * @param theta2     开角参数θ的平方：节点边长 < θ·距离 时按质心近似
+     * @param softening2 软化长度的平方，避免近距离相遇时加速度发散
+     * @param stack      遍历栈，长度至少为STACK_SIZE（每个线程各自持有）
+     */
+    public void accelerationAt(int i, float theta2, float softening2, int[] stack, float[] out) {
+        float px = x[i];
+        float py = y[i];
+        float pz = z[i];
+        float ax = 0.0f;
+        float ay = 0.0f;
+        float az = 0.0f;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int data = node * STRIDE;
+            float nodeMass = nodeData[data + 3];
+            if (nodeMass == 0.0f) {
+                continue;
+            }
+            int child = firstChild[node];
+            if (child < 0) {
+                for (int k = leafStart[node], end = k + bodyCount[node]; k < end; k++) {
+                    if (bodies[k] == i) {
+                        continue;
+                    }
+                    float dx = bodyX[k] - px;
+                    float dy = bodyY[k] - py;
+                    float dz = bodyZ[k] - pz;
+                    float distance2 = dx * dx + dy * dy + dz * dz + softening2;
+                    float factor = particleMass / (distance2 * (float) Math.sqrt(distance2));
+                    ax += dx * factor;
+                    ay += dy * factor;
+                    az += dz * factor;
+                }
+                continue;
+            }
+
+            float dx = nodeData[data] - px;
+            float dy = nodeData[data + 1] - py;
+            float dz = nodeData[data + 2] - pz;
+            float distance2 = dx * dx + dy * dy + dz * dz;
+            float size = nodeData[data + 4];
+            if (size * size < theta2 * distance2 && !contains(node, px, py, pz)) {
+                distance2 += softening2;
+                float factor = nodeMass / (distance2 * (float) Math.sqrt(distance2));
+                ax += dx * factor;
+                ay += dy * factor;
+                az += dz * factor;
+            } else {
+                for (int c = child; c < child + 8; c++) {
+                    if (nodeData[c * STRIDE + 3] != 0.0f) {
+                        stack[top++] = c;
+                    }
+                }
+            }
+        }
+        out[0] = ax;
+        out[1] = ay;
+        out[2] = az;
+    }
+
+    /**
+     * 点是否在节点的立方体内（包含该点的节点必须展开，避免把自身计入近似）
+     */
+    private boolean contains(int node, float px, float py, float pz) {
+        float half = halfSize[node];
+        return Math.abs(px - centerX[node]) <= half
+                && Math.abs(py - centerY[node]) <= half
+                && Math.abs(pz - centerZ[node]) <= half;
+    }
+
+    /**
+     * 深度优先顺序中的第k个粒子（k < 构建时的粒子数），按此顺序计算引力可提高缓存命中率
+     */
+    public int getBody(int k) {
+        return bodies[k];
+    }
+
+    /**
+     * 当前节点数
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -9,6 +9,9 @@ import org.joml.Vector3f;
 public class BlackHole {
     private Vector3f position;
     private float mass;
+    // 无量纲自旋a/M，取值[-1, 1]；正值为顺行（与吸积盘同向旋转）
+    private float spin;
+    private float schwarzschildRadius;
     private float eventHorizonRadius;
     private float accretionDiskInnerRadius;
     private float accretionDiskOuterRadius;
@@ -17,6 +20,10 @@ public class BlackHole {
     public static final float GRAVITATIONAL_CONSTANT = 6.67430e-11f;
     public static final float SPEED_OF_LIGHT = 299792458.0f;
 
+    // 吸积盘内缘和外缘的温度（K）
+    public static final float DISK_INNER_TEMPERATURE = 10000.0f;
+    public static final float DISK_OUTER_TEMPERATURE = 3000.0f;
+
     /**
      * 构造函数 - 初始化黑洞参数
      */
@@ -39,12 +46,34 @@ public class BlackHole {
      * 更新派生属性（基于质量计算）
      */
     private void updateDerivedProperties() {
-        // 计算史瓦西半径（事件视界）
-        this.eventHorizonRadius = calculateSchwarzschildRadius(mass);
+        // 计算史瓦西半径，引力半径GM/c²为其一半
+        this.schwarzschildRadius = calculateSchwarzschildRadius(mass);
+        float gravitationalRadius = schwarzschildRadius * 0.5f;
+
+        // 克尔视界 r+ = M(1 + sqrt(1 - a²))，不旋转时即史瓦西半径
+        this.eventHorizonRadius = gravitationalRadius * horizonRadius(spin);
+
+        // 计算吸积盘范围（内缘为ISCO - Innermost Stable Circular Orbit，不旋转时为3倍史瓦西半径）
+        this.accretionDiskInnerRadius = gravitationalRadius * iscoRadius(spin);
+        this.accretionDiskOuterRadius = schwarzschildRadius * 8.0f; // 8倍史瓦西半径
+    }
+
+    /**
+     * 克尔黑洞事件视界半径（单位GM/c²）
+     */
+    public static float horizonRadius(float spin) {
+        return 1.0f + (float) Math.sqrt(Math.max(1.0 - spin * spin, 0.0));
+    }
 
-        // 计算吸积盘范围（基于ISCO - Innermost Stable Circular Orbit）
-        this.accretionDiskInnerRadius = eventHorizonRadius * 3.0f; // 3倍史瓦西半径
-        this.accretionDiskOuterRadius = eventHorizonRadius * 8.0f; // 8倍史瓦西半径
+    /**
+     * 赤道面最内稳定圆轨道半径（单位GM/c²，Bardeen–Press–Teukolsky公式）
+     * 自旋为正时是顺行轨道：a = 0时为6，a = 1时为1；自旋为负时是逆行轨道，a = -1时为9
+     */
+    public static float iscoRadius(float spin) {
+        double a = spin;
+        double z1 = 1.0 + Math.cbrt(1.0 - a * a) * (Math.cbrt(1.0 + a) + Math.cbrt(1.0 - a));
+        double z2 = Math.sqrt(3.0 * a * a + z1 * z1);
+        return (float) (3.0 + z2 - Math.signum(a) * Math.sqrt((3.0 - z1) * (3.0 + z1 + 2.0 * z2)));
     }
 
     /**
@@ -59,46 +88,72 @@ public class BlackHole {
      * 计算引力强度在给定位置
      */
     public float calculateGravityStrength(Vector3f point) {
-        Vector3f toBlackHole = new Vector3f(position).sub(point);
-        float distance = toBlackHole.length();
+        return calculateGravityStrength(point.x, point.y, point.z);
+    }
+
+    /**
+     * 计算引力强度在给定位置（分量形式，不分配对象）
+     */
+    public float calculateGravityStrength(float x, float y, float z) {
+        double distanceSquared = distanceSquared(x, y, z);
 
         // 避免除零
-        if (distance < 0.001f) {
+        if (distanceSquared < 0.001 * 0.001) {
             return Float.MAX_VALUE;
         }
 
         // 牛顿引力公式：F = G * M / r^2
-        return (GRAVITATIONAL_CONSTANT * mass) / (distance * distance);
+        return (float) ((GRAVITATIONAL_CONSTANT * mass) / distanceSquared);
     }
 
     /**
      * 计算引力方向
      */
     public Vector3f calculateGravityDirection(Vector3f point) {
-        Vector3f direction = new Vector3f(position).sub(point);
-        return direction.normalize();
+        return gravityDirection(point.x, point.y, point.z, new Vector3f());
+    }
+
+    /**
+     * 计算引力方向（写入目标向量，不分配对象）
+     */
+    public Vector3f gravityDirection(float x, float y, float z, Vector3f dest) {
+        return dest.set(position.x - x, position.y - y, position.z - z).normalize();
     }
 
     /**
      * 检查点是否在事件视界内
      */
     public boolean isInsideEventHorizon(Vector3f point) {
-        float distance = new Vector3f(position).sub(point).length();
-        return distance < eventHorizonRadius;
+        return isInsideEventHorizon(point.x, point.y, point.z);
+    }
+
+    /**
+     * 检查点是否在事件视界内（分量形式）
+     */
+    public boolean isInsideEventHorizon(float x, float y, float z) {
+        return distanceSquared(x, y, z) < (double) eventHorizonRadius * eventHorizonRadius;
     }
 
     /**
      * 检查点是否在吸积盘内
      */
     public boolean isInsideAccretionDisk(Vector3f point) {
+        return isInsideAccretionDisk(point.x, point.y, point.z);
+    }
+
+    /**
+     * 检查点是否在吸积盘内（分量形式）
+     */
+    public boolean isInsideAccretionDisk(float x, float y, float z) {
         // 转换为黑洞为中心的坐标
-        Vector3f relativePos = new Vector3f(point).sub(position);
+        float relativeX = x - position.x;
+        float relativeZ = z - position.z;
 
         // 计算径向距离（忽略Y轴）
-        float radialDistance = (float) Math.sqrt(relativePos.x * relativePos.x + relativePos.z * relativePos.z);
+        float radialDistance = (float) Math.sqrt(relativeX * relativeX + relativeZ * relativeZ);
 
         // 检查高度（吸积盘很薄）
-        float height = Math.abs(relativePos.y);
+        float height = Math.abs(y - position.y);
         float diskThickness = 0.1f * accretionDiskInnerRadius;
 
         return radialDistance >= accretionDiskInnerRadius &&
@@ -115,25 +170,49 @@ public class BlackHole {
                 (accretionDiskOuterRadius - accretionDiskInnerRadius);
 
         // 温度从内到外：10000K -> 3000K
-        return 10000.0f - normalizedDistance * 7000.0f;
+        return DISK_INNER_TEMPERATURE - normalizedDistance * (DISK_INNER_TEMPERATURE - DISK_OUTER_TEMPERATURE);
     }
 
     /**
      * 计算引力红移因子
      */
     public float calculateRedshiftFactor(Vector3f observerPos, Vector3f sourcePos) {
-        float r_observer = new Vector3f(observerPos).sub(position).length();
-        float r_source = new Vector3f(sourcePos).sub(position).length();
+        return calculateRedshiftFactor(observerPos.x, observerPos.y, observerPos.z,
+                sourcePos.x, sourcePos.y, sourcePos.z);
+    }
+
+    /**
+     * 计算引力红移因子（分量形式）
+     */
+    public float calculateRedshiftFactor(float observerX, float observerY, float observerZ,
+                                         float sourceX, float sourceY, float sourceZ) {
+        float r_observer = (float) Math.sqrt(distanceSquared(observerX, observerY, observerZ));
+        float r_source = (float) Math.sqrt(distanceSquared(sourceX, sourceY, sourceZ));
 
         // 简化的红移计算
-        return (float) Math.sqrt((1 - eventHorizonRadius / r_observer) /
-                (1 - eventHorizonRadius / r_source));
+        return (float) Math.sqrt((1 - schwarzschildRadius / r_observer) /
+                (1 - schwarzschildRadius / r_source));
+    }
+
+    /**
+     * 点到黑洞中心距离的平方
+     * 以双精度计算：默认质量下的视界半径约6e-27，其平方在float中会下溢为0
+     */
+    private double distanceSquared(float x, float y, float z) {
+        double dx = position.x - x;
+        double dy = position.y - y;
+        double dz = position.z - z;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     public Vector3f getPosition() {
         return new Vector3f(position);
     }
 
+    public Vector3f getPosition(Vector3f dest) {
+        return dest.set(position);
+    }
+
     public void setPosition(Vector3f position) {
         this.position.set(position);
     }
@@ -147,6 +226,25 @@ public class BlackHole {
         updateDerivedProperties();
     }
 
+    public float getSpin() {
+        return spin;
+    }
+
+    /**
+     * 设置无量纲自旋a/M（[-1, 1]），视界和ISCO随之更新
+     */
+    public void setSpin(float spin) {
+        if (!(Math.abs(spin) <= 1.0f)) {
+            throw new IllegalArgumentException("Spin must be in [-1, 1]: " + spin);
+        }
+        this.spin = spin;
+        updateDerivedProperties();
+    }
+
+    public float getSchwarzschildRadius() {
+        return schwarzschildRadius;
+    }
+
     public float getEventHorizonRadius() {
         return eventHorizonRadius;
     }
@@ -163,7 +261,7 @@ public class BlackHole {
      * 获取黑洞状态信息
      */
     public String getStatusInfo() {
-        return String.format("Black Hole - Mass: %.2f, Event Horizon: %.2f, Disk: [%.2f - %.2f]",
-                mass, eventHorizonRadius, accretionDiskInnerRadius, accretionDiskOuterRadius);
+        return String.format("Black Hole - Mass: %.2f, Spin: %.3f, Event Horizon: %.2f, Disk: [%.2f - %.2f]",
+                mass, spin, eventHorizonRadius, accretionDiskInnerRadius, accretionDiskOuterRadius);
     }
 }
@@ -0,0 +1,127 @@
+package org.example.simulation;
+
+/**
+ * 黑体辐射颜色查找表
+ * 类加载时把1000–40000 K的普朗克谱与CIE 1931配色函数（Wyman等人的多高斯解析拟合）在380–780 nm上积分，
+ * 转换为线性sRGB。表项按温度的对数等距排列：频移因子g使观测温度变为g·T，对应固定的索引偏移ln g / 步长，
+ * 引力红移和多普勒频移不需要重新查温度。每次查询是一次线性插值
+ */
+public final class BlackbodyTable {
+    public static final float MIN_TEMPERATURE = 1000.0f;
+    public static final float MAX_TEMPERATURE = 40000.0f;
+    // 亮度为1的参考温度
+    public static final float REFERENCE_TEMPERATURE = 10000.0f;
+
+    private static final int SIZE = 1024;
+    // 相邻表项温度之比的自然对数
+    private static final double LOG_STEP = Math.log(MAX_TEMPERATURE / MIN_TEMPERATURE) / (SIZE - 1);
+    private static final float INDEX_SCALE = (float) (1.0 / LOG_STEP);
+    private static final float MAX_INDEX = SIZE - 1;
+
+    // 光谱积分范围和步长（nm）
+    private static final double MIN_WAVELENGTH = 380.0;
+    private static final double MAX_WAVELENGTH = 780.0;
+    private static final double WAVELENGTH_STEP = 5.0;
+    // 第二辐射常数hc/k（nm·K）
+    private static final double SECOND_RADIATION_CONSTANT = 1.438777e7;
+
+    // 归一化颜色（最大分量为1）和乘以(T / 参考温度)^4后的辐射颜色，每项3个float
+    private static final float[] CHROMATICITY = new float[SIZE * 3];
+    private static final float[] EMISSION = new float[SIZE * 3];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            double temperature = MIN_TEMPERATURE * Math.exp(i * LOG_STEP);
+            double x = 0.0;
+            double y = 0.0;
+            double z = 0.0;
+            for (double lambda = MIN_WAVELENGTH; lambda <= MAX_WAVELENGTH; lambda += WAVELENGTH_STEP) {
+                // 普朗克谱（省略常数因子，归一化后无关）
+                double radiance = 1.0 / (Math.pow(lambda, 5.0)
+                        * Math.expm1(SECOND_RADIATION_CONSTANT / (lambda * temperature)));
+                x += radiance * (1.056 * lobe(lambda, 599.8, 37.9, 31.0) + 0.362 * lobe(lambda, 442.0, 16.0, 26.7)
+                        - 0.065 * lobe(lambda, 501.1, 20.4, 26.2));
+                y += radiance * (0.821 * lobe(lambda, 568.8, 46.9, 40.5) + 0.286 * lobe(lambda, 530.9, 16.3, 31.1));
+                z += radiance * (1.217 * lobe(lambda, 437.0, 11.8, 36.0) + 0.681 * lobe(lambda, 459.0, 26.0, 13.8));
+            }
+
+            // XYZ → 线性sRGB（D65），色域外的负分量截断为0
+            double r = Math.max(3.2406 * x - 1.5372 * y - 0.4986 * z, 0.0);
+            double g = Math.max(-0.9689 * x + 1.8758 * y + 0.0415 * z, 0.0);
+            double b = Math.max(0.0557 * x - 0.2040 * y + 1.0570 * z, 0.0);
+            double max = Math.max(r, Math.max(g, b));
+            // 斯蒂芬-玻尔兹曼定律：亮度 ∝ T^4
+            double ratio = temperature / REFERENCE_TEMPERATURE;
+            double brightness = ratio * ratio * ratio * ratio;
+            double[] rgb = {r / max, g / max, b / max};
+            for (int c = 0; c < 3; c++) {
+                CHROMATICITY[i * 3 + c] = (float) rgb[c];
+                EMISSION[i * 3 + c] = (float) (rgb[c] * brightness);
+            }
+        }
+    }
+
+    private BlackbodyTable() {
+    }
+
+    /**
+     * 配色函数拟合用的分段高斯（峰值左右宽度不同）
+     */
+    private static double lobe(double lambda, double mean, double leftWidth, double rightWidth) {
+        double t = (lambda - mean) / (lambda < mean ? leftWidth : rightWidth);
+        return Math.exp(-0.5 * t * t);
+    }
+
+    /**
+     * 温度对应的表索引（浮点，超出表范围时查询结果取端点值）
+     */
+    public static float index(float temperature) {
+        if (!(temperature > MIN_TEMPERATURE)) {
+            return 0.0f;
+        }
+        return (float) Math.log(temperature / MIN_TEMPERATURE) * INDEX_SCALE;
+    }
+
+    /**
+     * 频移因子g（观测频率/发射频率）对应的索引偏移
+     */
+    public static float shift(float g) {
+        return (float) Math.log(g) * INDEX_SCALE;
+    }
+
+    /**
+     * 归一化颜色（最大分量为1）写入out
+     */
+    public static void chromaticity(float index, float[] out, int offset) {
+        lookup(CHROMATICITY, index, out, offset);
+    }
+
+    /**
+     * 辐射颜色（归一化颜色 × (T / 参考温度)^4）写入out
+     */
+    public static void emission(float index, float[] out, int offset) {
+        lookup(EMISSION, index, out, offset);
+    }
+
+    /**
+     * 归一化颜色的单个分量（0 = R，1 = G，2 = B）
+     */
+    public static float chromaticity(float index, int channel) {
+        float position = index > 0.0f ? Math.min(index, MAX_INDEX) : 0.0f;
+        int i = Math.min((int) position, SIZE - 2);
+        float low = CHROMATICITY[i * 3 + channel];
+        return low + (CHROMATICITY[i * 3 + 3 + channel] - low) * (position - i);
+    }
+
+    private static void lookup(float[] table, float index, float[] out, int offset) {
+        // NaN按下端处理
+        float position = index > 0.0f ? Math.min(index, MAX_INDEX) : 0.0f;
+        int i = Math.min((int) position, SIZE - 2);
+        float fraction = position - i;
+        int a = i * 3;
+        for (int c = 0; c < 3; c++) {
+            float low = table[a + c];
+            out[offset + c] = low + (table[a + 3 + c] - low) * fraction;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package org.example.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * 光子偏折查找表
+ * 着色器的弯曲模型中，光线始终被拉向黑洞中心，因此每条光线都在"相机-黑洞-光线方向"所在的平面内运动，
+ * 其轨迹只取决于黑洞质量、相机到黑洞的距离以及光线与黑洞方向的夹角（即碰撞参数）。
+ * 本表对这两个参数预先积分平面轨迹，记录最终结局、出射方向偏折角以及轨迹半径随扫过角度的变化，
+ * 渲染时按光线参数直接查表即可得到视界捕获、吸积盘穿越半径和逃逸方向
+ */
+public class DeflectionTable {
+    // 光线结局
+    public static final int CAPTURED = 0;
+    public static final int ESCAPED = 1;
+    public static final int EXHAUSTED = 2;
+
+    // 默认分辨率
+    public static final int DEFAULT_ANGLE_SAMPLES = 256;
+    public static final int DEFAULT_DISTANCE_SAMPLES = 48;
+    public static final int DEFAULT_PHASE_SAMPLES = 128;
+
+    // 记录轨迹半径的最大扫过角度
+    public static final float MAX_SWEEP = (float) (4.0 * Math.PI);
+
+    // 相机距离的查表范围
+    public static final float MAX_CAMERA_DISTANCE = 64.0f;
+    private static final float MIN_DISTANCE_FACTOR = 1.05f;
+
+    // 与着色器一致的步进参数
+    private static final int MAX_STEPS = 200;
+    private static final float ESCAPE_DISTANCE = 200.0f;
+
+    // 缓存文件格式
+    private static final int MAGIC = 0x42484454; // "BHDT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 7 * 4;
+
+    private final float mass;
+    private final float eventHorizonRadius;
+    private final int angleSamples;
+    private final int distanceSamples;
+    private final int phaseSamples;
+    private final float minDistance;
+    private final float logDistanceRange;
+    private final float phaseStep;
+
+    // 按 [距离][夹角] 排列
+    private final byte[] outcomes;
+    private final float[] sweeps;
+    private final float[] deflections;
+    // 按 [距离][夹角][扫过角度] 排列，轨迹结束后为NaN
+    private final float[] radii;
+
+    /**
+     * 构造函数 - 分配空表
+     */
+    private DeflectionTable(float mass, float eventHorizonRadius,
+                            int angleSamples, int distanceSamples, int phaseSamples) {
+        if (angleSamples < 2 || distanceSamples < 2 || phaseSamples < 2) {
+            throw new IllegalArgumentException("Deflection table needs at least 2 samples per axis");
+        }
+        this.mass = mass;
+        this.eventHorizonRadius = eventHorizonRadius;
+        this.angleSamples = angleSamples;
+        this.distanceSamples = distanceSamples;
+        this.phaseSamples = phaseSamples;
+        this.minDistance = eventHorizonRadius * MIN_DISTANCE_FACTOR;
+        this.logDistanceRange = (float) Math.log(MAX_CAMERA_DISTANCE / minDistance);
+        this.phaseStep = MAX_SWEEP / (phaseSamples - 1);
+
+        int rays = angleSamples * distanceSamples;
+        this.outcomes = new byte[rays];
+        this.sweeps = new float[rays];
+        this.deflections = new float[rays];
+        this.radii = new float[rays * phaseSamples];
+    }
+
+    /**
+     * 使用默认分辨率构建查找表
+     */
+    public static DeflectionTable build(float mass, float eventHorizonRadius) {
+        return build(mass, eventHorizonRadius,
+                DEFAULT_ANGLE_SAMPLES, DEFAULT_DISTANCE_SAMPLES, DEFAULT_PHASE_SAMPLES);
+    }
+
+    /**
+     * 构建查找表（各条样本光线并行积分）
+     */
+    public static DeflectionTable build(float mass, float eventHorizonRadius,
+                                        int angleSamples, int distanceSamples, int phaseSamples) {
+        DeflectionTable table = new DeflectionTable(mass, eventHorizonRadius,
+                angleSamples, distanceSamples, phaseSamples);
+        IntStream.range(0, angleSamples * distanceSamples).parallel().forEach(table::trace);
+        return table;
+    }
+
+    /**
+     * 优先从磁盘缓存加载查找表，缓存不存在或损坏时重新构建并写回
+     */
+    public static DeflectionTable loadOrBuild(float mass, float eventHorizonRadius, File cacheDir) {
+        File file = new File(cacheDir, cacheFileName(mass, eventHorizonRadius,
+                DEFAULT_ANGLE_SAMPLES, DEFAULT_DISTANCE_SAMPLES, DEFAULT_PHASE_SAMPLES));
+        if (file.isFile()) {
+            try {
+                return load(file, mass, eventHorizonRadius);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable deflection table cache: " + file + " (" + e.getMessage() + ")");
+            }
+        }
+
+        DeflectionTable table = build(mass, eventHorizonRadius);
+        try {
+            table.save(file);
+        } catch (IOException e) {
+            System.err.println("Could not write deflection table cache: " + file + " (" + e.getMessage() + ")");
+        }
+        return table;
+    }
+
+    /**
+     * 默认缓存目录
+     */
+    public static File defaultCacheDir() {
+        String dir = System.getProperty("blackhole.cacheDir");
+        if (dir != null) {
+            return new File(dir);
+        }
+        return new File(System.getProperty("user.home"), ".blackhole-simulation/cache");
+    }
+
+    /**
+     * 缓存文件名（以质量、视界半径和分辨率为键）
+     */
+    static String cacheFileName(float mass, float eventHorizonRadius,
+                                int angleSamples, int distanceSamples, int phaseSamples) {
+        return String.format("deflection-m%08x-h%08x-%dx%dx%d-v%d.bin",
+                Float.floatToIntBits(mass), Float.floatToIntBits(eventHorizonRadius),
+                angleSamples, distanceSamples, phaseSamples, VERSION);
+    }
+
+    /**
+     * 积分单条样本光线的平面轨迹
+     * 平面坐标系：黑洞在原点，相机在(+distance, 0)，光线初始方向为(-cos θ, sin θ)
+     */
+    private void trace(int ray) {
+        float distance = distanceAt(ray / angleSamples);
+        float angle = angleAt(ray % angleSamples);
+        int base = ray * phaseSamples;
+
+        float posU = distance;
+        float posV = 0.0f;
+        float dirU = -(float) Math.cos(angle);
+        float dirV = (float) Math.sin(angle);
+
+        float radius = distance;
+        float phase = 0.0f;
+        float deflection = 0.0f;
+        int nextSample = 1;
+        radii[base] = distance;
+
+        int outcome = EXHAUSTED;
+        for (int i = 0; i < MAX_STEPS; i++) {
+            // 事件视界检测
+            if (radius < eventHorizonRadius) {
+                outcome = CAPTURED;
+                break;
+            }
+
+            // 引力弯曲（与着色器相同的启发式公式）
+            float gravityStrength = mass / (radius * radius + 0.1f);
+            float bendFactor = Math.min(gravityStrength * 0.12f, 0.25f) / radius;
+            float newDirU = dirU - posU * bendFactor;
+            float newDirV = dirV - posV * bendFactor;
+            float invLength = 1.0f / (float) Math.sqrt(newDirU * newDirU + newDirV * newDirV);
+            newDirU *= invLength;
+            newDirV *= invLength;
+            deflection += (float) Math.atan2(dirU * newDirV - dirV * newDirU, dirU * newDirU + dirV * newDirV);
+            dirU = newDirU;
+            dirV = newDirV;
+
+            // 自适应步长
+            float t = Math.min(Math.max(radius / 3.0f, 0.0f), 1.0f);
+            float stepSize = 0.05f + 0.25f * (t * t * (3.0f - 2.0f * t));
+            float newU = posU + dirU * stepSize;
+            float newV = posV + dirV * stepSize;
+            float newRadius = (float) Math.sqrt(newU * newU + newV * newV);
+            float newPhase = phase + (float) Math.atan2(posU * newV - posV * newU, posU * newU + posV * newV);
+
+            // 记录落在本步内的等角度半径采样
+            while (nextSample < phaseSamples && nextSample * phaseStep <= newPhase) {
+                float k = (nextSample * phaseStep - phase) / (newPhase - phase);
+                radii[base + nextSample] = radius + (newRadius - radius) * k;
+                nextSample++;
+            }
+
+            posU = newU;
+            posV = newV;
+            radius = newRadius;
+            phase = newPhase;
+
+            // 距离限制（相对相机）
+            float eu = posU - distance;
+            if (eu * eu + posV * posV > ESCAPE_DISTANCE * ESCAPE_DISTANCE) {
+                outcome = ESCAPED;
+                break;
+            }
+        }
+
+        for (int p = nextSample; p < phaseSamples; p++) {
+            radii[base + p] = Float.NaN;
+        }
+        outcomes[ray] = (byte) outcome;
+        sweeps[ray] = phase;
+        deflections[ray] = deflection;
+    }
+
+    // ========== 查表方法 ==========
+
+    /**
+     * 检查相机距离是否在表的覆盖范围内
+     */
+    public boolean covers(float cameraDistance) {
+        return cameraDistance >= minDistance && cameraDistance <= MAX_CAMERA_DISTANCE;
+    }
+
+    /**
+     * 光线结局（最近邻）
+     *
+     * @param cameraDistance 相机到黑洞的距离
+     * @param angle          光线方向与黑洞方向的夹角（弧度，0到π）
+     */
+    public int outcome(float cameraDistance, float angle) {
+        return outcomes[nearestRay(cameraDistance, angle)];
+    }
+
+    /**
+     * 轨迹扫过的总角度（最近邻）
+     */
+    public float sweep(float cameraDistance, float angle) {
+        return sweeps[nearestRay(cameraDistance, angle)];
+    }
+
+    /**
+     * 出射方向相对初始方向的偏折角（双线性插值，正值表示偏向黑洞一侧）
+     */
+    public float deflection(float cameraDistance, float angle) {
+        float d = distanceCoordinate(cameraDistance);
+        float a = angleCoordinate(angle);
+        int d0 = Math.min((int) d, distanceSamples - 2);
+        int a0 = Math.min((int) a, angleSamples - 2);
+        float fd = d - d0;
+        float fa = a - a0;
+
+        int ray = d0 * angleSamples + a0;
+        float v00 = deflections[ray];
+        float v01 = deflections[ray + 1];
+        float v10 = deflections[ray + angleSamples];
+        float v11 = deflections[ray + angleSamples + 1];
+        return (v00 * (1.0f - fa) + v01 * fa) * (1.0f - fd) + (v10 * (1.0f - fa) + v11 * fa) * fd;
+    }
+
+    /**
+     * 轨迹扫过指定角度时到黑洞的距离，轨迹未到达该角度时返回NaN
+     * 四个相邻样本光线都有效时双线性插值，否则退化为最近邻
+     */
+    public float radiusAt(float cameraDistance, float angle, float phase) {
+        if (phase < 0.0f || phase > MAX_SWEEP) {
+            return Float.NaN;
+        }
+        float d = distanceCoordinate(cameraDistance);
+        float a = angleCoordinate(angle);
+        float p = phase / phaseStep;
+        int d0 = Math.min((int) d, distanceSamples - 2);
+        int a0 = Math.min((int) a, angleSamples - 2);
+        int p0 = Math.min((int) p, phaseSamples - 2);
+        float fd = d - d0;
+        float fa = a - a0;
+        float fp = p - p0;
+
+        int ray = d0 * angleSamples + a0;
+        float v00 = radiusSample(ray, p0, fp);
+        float v01 = radiusSample(ray + 1, p0, fp);
+        float v10 = radiusSample(ray + angleSamples, p0, fp);
+        float v11 = radiusSample(ray + angleSamples + 1, p0, fp);
+
+        float value = (v00 * (1.0f - fa) + v01 * fa) * (1.0f - fd) + (v10 * (1.0f - fa) + v11 * fa) * fd;
+        if (!Float.isNaN(value)) {
+            return value;
+        }
+        return radiusSample(nearestRay(cameraDistance, angle), p0, fp);
+    }
+
+    private float radiusSample(int ray, int p0, float fp) {
+        int index = ray * phaseSamples + p0;
+        return radii[index] * (1.0f - fp) + radii[index + 1] * fp;
+    }
+
+    private int nearestRay(float cameraDistance, float angle) {
+        int d = Math.round(distanceCoordinate(cameraDistance));
+        int a = Math.round(angleCoordinate(angle));
+        return d * angleSamples + a;
+    }
+
+    /**
+     * 夹角采样按平方分布，在小角度（黑洞附近）处更密
+     */
+    private float angleAt(int index) {
+        float s = (float) index / (angleSamples - 1);
+        return (float) Math.PI * s * s;
+    }
+
+    private float angleCoordinate(float angle) {
+        float s = (float) Math.sqrt(Math.min(Math.max(angle, 0.0f), (float) Math.PI) / Math.PI);
+        return s * (angleSamples - 1);
+    }
+
+    /**
+     * 距离采样按对数分布
+     */
+    private float distanceAt(int index) {
+        return minDistance * (float) Math.exp(logDistanceRange * index / (distanceSamples - 1));
+    }
+
+    private float distanceCoordinate(float cameraDistance) {
+        float clamped = Math.min(Math.max(cameraDistance, minDistance), MAX_CAMERA_DISTANCE);
+        return (float) Math.log(clamped / minDistance) / logDistanceRange * (distanceSamples - 1);
+    }
+
+    // ========== 磁盘缓存 ==========
+
+    /**
+     * 将查找表写入文件（先写临时文件再原子替换）
+     */
+    public void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create cache directory: " + dir);
+        }
+
+        int rays = outcomes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rays + (rays * 2 + radii.length) * 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .putFloat(mass).putFloat(eventHorizonRadius)
+                .putInt(angleSamples).putInt(distanceSamples).putInt(phaseSamples);
+        buffer.put(outcomes);
+        putFloats(buffer, sweeps);
+        putFloats(buffer, deflections);
+        putFloats(buffer, radii);
+        buffer.flip();
+
+        File temp = new File(dir, file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 从文件读取默认分辨率的查找表，并校验其参数与请求一致
+     */
+    public static DeflectionTable load(File file, float mass, float eventHorizonRadius) throws IOException {
+        return load(file, mass, eventHorizonRadius,
+                DEFAULT_ANGLE_SAMPLES, DEFAULT_DISTANCE_SAMPLES, DEFAULT_PHASE_SAMPLES);
+    }
+
+    /**
+     * 从文件读取查找表，并校验其参数和分辨率与请求一致
+     * 文件大小先按期望的分辨率核对，损坏的样本数不会导致按任意大小分配内存
+     */
+    public static DeflectionTable load(File file, float mass, float eventHorizonRadius,
+                                       int angleSamples, int distanceSamples, int phaseSamples) throws IOException {
+        if (angleSamples < 2 || distanceSamples < 2 || phaseSamples < 2) {
+            throw new IllegalArgumentException("Deflection table needs at least 2 samples per axis");
+        }
+        long rays = (long) angleSamples * distanceSamples;
+        long expectedBytes = HEADER_BYTES + rays + (rays * 2 + rays * phaseSamples) * 4;
+        if (expectedBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Deflection table resolution too large: "
+                    + angleSamples + "x" + distanceSamples + "x" + phaseSamples);
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() != expectedBytes) {
+                throw new IOException("Deflection table file has " + channel.size()
+                        + " bytes, expected " + expectedBytes);
+            }
+            buffer = ByteBuffer.allocate((int) expectedBytes).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满缓冲区
+            }
+        }
+        buffer.flip();
+
+        if (buffer.remaining() != expectedBytes || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a deflection table file");
+        }
+        float fileMass = buffer.getFloat();
+        float fileHorizon = buffer.getFloat();
+        if (Float.floatToIntBits(fileMass) != Float.floatToIntBits(mass)
+                || Float.floatToIntBits(fileHorizon) != Float.floatToIntBits(eventHorizonRadius)) {
+            throw new IOException("Deflection table parameters do not match");
+        }
+        int fileAngleSamples = buffer.getInt();
+        int fileDistanceSamples = buffer.getInt();
+        int filePhaseSamples = buffer.getInt();
+        if (fileAngleSamples != angleSamples || fileDistanceSamples != distanceSamples
+                || filePhaseSamples != phaseSamples) {
+            throw new IOException("Deflection table resolution " + fileAngleSamples + "x" + fileDistanceSamples
+                    + "x" + filePhaseSamples + " does not match " + angleSamples + "x" + distanceSamples
+                    + "x" + phaseSamples);
+        }
+
+        DeflectionTable table = new DeflectionTable(mass, eventHorizonRadius,
+                angleSamples, distanceSamples, phaseSamples);
+        buffer.get(table.outcomes);
+        getFloats(buffer, table.sweeps);
+        getFloats(buffer, table.deflections);
+        getFloats(buffer, table.radii);
+        return table;
+    }
+
+    private static void putFloats(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    private static void getFloats(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    // ========== Getter方法 ==========
+
+    public float getMass() {
+        return mass;
+    }
+
+    public float getEventHorizonRadius() {
+        return eventHorizonRadius;
+    }
+
+    /**
+     * 检查查找表是否对应给定的黑洞参数
+     */
+    public boolean matches(float mass, float eventHorizonRadius) {
+        return this.mass == mass && this.eventHorizonRadius == eventHorizonRadius;
+    }
+}
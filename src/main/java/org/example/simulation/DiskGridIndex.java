@@ -0,0 +1,408 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/**
+ * 吸积盘粒子的极坐标网格索引
+ * XZ平面按半径等分为若干环、按方位角分为若干扇区，超出最大半径（或坐标无效）的粒子归入一个溢出单元；
+ * 每次重建用计数排序把粒子按单元排列到连续的数组中，查询只访问与查询区域相交的单元，
+ * 耗时与结果数量（加上边界单元中的粒子数）成正比，而与粒子总数无关
+ */
+public class DiskGridIndex {
+    public static final int DEFAULT_RINGS = 32;
+    public static final int DEFAULT_SECTORS = 64;
+
+    // 伪角度的取值范围[0, 4)，对应方位角[0, 2π)
+    private static final float PSEUDO_ANGLE_RANGE = 4.0f;
+    private static final double TWO_PI = 2.0 * Math.PI;
+
+    private final int rings;
+    private final int sectors;
+    private final float maxRadius;
+    private final float inverseRingWidth;
+    private final float sectorsPerPseudoAngle;
+    private final int overflowCell;
+
+    // 单元c的粒子位于排序数组的[cellStart[c], cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] cursor;
+    private int[] keys = new int[0];
+    // 按单元排序后的原始粒子索引和坐标
+    private int[] order = new int[0];
+    private float[] sortedX = new float[0];
+    private float[] sortedY = new float[0];
+    private float[] sortedZ = new float[0];
+    private int size;
+
+    /**
+     * 构造函数
+     *
+     * @param maxRadius 网格覆盖的最大半径，之外的粒子归入溢出单元
+     * @param rings     径向环数
+     * @param sectors   每环的扇区数
+     */
+    public DiskGridIndex(float maxRadius, int rings, int sectors) {
+        if (!(maxRadius > 0.0f) || rings <= 0 || sectors <= 0) {
+            throw new IllegalArgumentException("Invalid grid: maxRadius=" + maxRadius
+                    + ", rings=" + rings + ", sectors=" + sectors);
+        }
+        this.rings = rings;
+        this.sectors = sectors;
+        this.maxRadius = maxRadius;
+        this.inverseRingWidth = rings / maxRadius;
+        this.sectorsPerPseudoAngle = sectors / PSEUDO_ANGLE_RANGE;
+        this.overflowCell = rings * sectors;
+        this.cellStart = new int[overflowCell + 2];
+        this.cursor = new int[overflowCell + 1];
+    }
+
+    /**
+     * 伪角度：在[0, 4)内随方位角atan2(z, x)单调递增，不需要三角函数
+     */
+    static float pseudoAngle(float x, float z) {
+        float sum = Math.abs(x) + Math.abs(z);
+        if (!(sum > 0.0f)) {
+            return 0.0f;
+        }
+        float p = z / sum;
+        if (x >= 0.0f) {
+            return z >= 0.0f ? p : PSEUDO_ANGLE_RANGE + p;
+        }
+        return 2.0f - p;
+    }
+
+    /**
+     * 方位角对应的伪角度
+     */
+    private static float pseudoAngle(double angle) {
+        return pseudoAngle((float) Math.cos(angle), (float) Math.sin(angle));
+    }
+
+    /**
+     * 坐标所在的单元
+     */
+    int cellOf(float x, float z) {
+        float r = (float) Math.sqrt((double) x * x + (double) z * z);
+        if (!(r < maxRadius)) {
+            return overflowCell;
+        }
+        int ring = Math.min((int) (r * inverseRingWidth), rings - 1);
+        return ring * sectors + sectorOf(pseudoAngle(x, z));
+    }
+
+    private int sectorOf(float pseudoAngle) {
+        return Math.min((int) (pseudoAngle * sectorsPerPseudoAngle), sectors - 1);
+    }
+
+    /**
+     * 计数排序重建索引（稳态下不分配内存）
+     */
+    void rebuild(float[] x, float[] y, float[] z, int size) {
+        ensureCapacity(size);
+        this.size = size;
+
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < size; i++) {
+            int key = cellOf(x[i], z[i]);
+            keys[i] = key;
+            cellStart[key + 1]++;
+        }
+        for (int c = 0; c <= overflowCell; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        System.arraycopy(cellStart, 0, cursor, 0, cursor.length);
+        for (int i = 0; i < size; i++) {
+            int slot = cursor[keys[i]]++;
+            order[slot] = i;
+            sortedX[slot] = x[i];
+            sortedY[slot] = y[i];
+            sortedZ[slot] = z[i];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (order.length < capacity) {
+            int length = Math.max(capacity, order.length * 2);
+            keys = new int[length];
+            order = new int[length];
+            sortedX = new float[length];
+            sortedY = new float[length];
+            sortedZ = new float[length];
+        }
+    }
+
+    /**
+     * 查询到点(cx, cy, cz)距离不超过radius的粒子
+     *
+     * @param out 接收粒子索引；结果多于数组长度时只写入前out.length个
+     * @return 匹配的粒子总数
+     */
+    public int queryRadius(float cx, float cy, float cz, float radius, int[] out) {
+        return scanRadius(cx, cy, cz, radius, out, null);
+    }
+
+    /**
+     * 查询半径在[innerRadius, outerRadius]、方位角在[fromAngle, toAngle]内的粒子（逆时针，允许跨越0）
+     *
+     * @param out 接收粒子索引；结果多于数组长度时只写入前out.length个
+     * @return 匹配的粒子总数
+     */
+    public int queryAnnulusSector(float innerRadius, float outerRadius, double fromAngle, double toAngle,
+                                  int[] out) {
+        double span = toAngle - fromAngle;
+        boolean fullCircle = span >= TWO_PI;
+        if (span < 0.0) {
+            span += TWO_PI;
+        }
+        float from = pseudoAngle(fromAngle);
+        float to = pseudoAngle(fromAngle + span);
+
+        int firstRing = Math.max((int) (Math.max(innerRadius, 0.0f) * inverseRingWidth), 0);
+        int lastRing = outerRadius < maxRadius ? (int) (outerRadius * inverseRingWidth) : rings - 1;
+        int firstSector = fullCircle ? 0 : sectorOf(from);
+        int sectorCount = fullCircle ? sectors : sectorSpan(firstSector, sectorOf(to), span);
+
+        double inner2 = (double) innerRadius * innerRadius;
+        double outer2 = (double) outerRadius * outerRadius;
+        int count = 0;
+        for (int ring = firstRing; ring <= lastRing && ring < rings; ring++) {
+            for (int n = 0, sector = firstSector; n < sectorCount; n++, sector = next(sector)) {
+                int cell = ring * sectors + sector;
+                count = collectAnnulus(cell, inner2, outer2, fullCircle, from, to, out, count);
+            }
+        }
+        if (outerRadius >= maxRadius) {
+            count = collectAnnulus(overflowCell, inner2, outer2, fullCircle, from, to, out, count);
+        }
+        return count;
+    }
+
+    private int collectAnnulus(int cell, double inner2, double outer2, boolean fullCircle, float from, float to,
+                               int[] out, int count) {
+        for (int slot = cellStart[cell], end = cellStart[cell + 1]; slot < end; slot++) {
+            float px = sortedX[slot];
+            float pz = sortedZ[slot];
+            double r2 = (double) px * px + (double) pz * pz;
+            if (r2 >= inner2 && r2 <= outer2 && (fullCircle || insideArc(pseudoAngle(px, pz), from, to))) {
+                if (count < out.length) {
+                    out[count] = order[slot];
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 查询距离点(cx, cy, cz)最近的k个粒子
+     *
+     * @param out 接收粒子索引（按距离从近到远），长度至少为k
+     * @return 找到的粒子数（粒子不足k个时小于k）
+     */
+    public int queryNearest(float cx, float cy, float cz, int k, int[] out) {
+        if (k <= 0 || size == 0) {
+            return 0;
+        }
+        k = Math.min(k, size);
+        Neighbours heap = new Neighbours(k);
+        // 搜索半径从一个环宽开始逐次加倍：球内已有k个粒子时，球外的粒子不可能更近
+        float radius = 1.0f / inverseRingWidth;
+        float reach = (float) Math.sqrt((double) cx * cx + (double) cz * cz) + maxRadius;
+        while (true) {
+            heap.clear();
+            scanRadius(cx, cy, cz, radius, null, heap);
+            if (heap.size == k) {
+                break;
+            }
+            if (radius > reach) {
+                // 已覆盖整个网格，剩余候选只在溢出单元中，不限距离再查一次
+                heap.clear();
+                scanRadius(cx, cy, cz, Float.POSITIVE_INFINITY, null, heap);
+                break;
+            }
+            radius *= 2.0f;
+        }
+        return heap.drainSorted(out);
+    }
+
+    /**
+     * 枚举与球体相交的单元；out非空时写出结果，否则压入最近邻堆
+     */
+    private int scanRadius(float cx, float cy, float cz, float radius, int[] out, Neighbours heap) {
+        float centre = (float) Math.sqrt((double) cx * cx + (double) cz * cz);
+        double radius2 = (double) radius * radius;
+
+        int firstRing = Math.max((int) ((centre - radius) * inverseRingWidth), 0);
+        int lastRing = Math.min((int) ((centre + radius) * inverseRingWidth), rings - 1);
+        int firstSector;
+        int sectorCount;
+        if (radius >= centre) {
+            firstSector = 0;
+            sectorCount = sectors;
+        } else {
+            double halfAngle = Math.asin(radius / centre);
+            double angle = Math.atan2(cz, cx);
+            firstSector = sectorOf(pseudoAngle(angle - halfAngle));
+            sectorCount = sectorSpan(firstSector, sectorOf(pseudoAngle(angle + halfAngle)), 2.0 * halfAngle);
+        }
+
+        int count = 0;
+        if (centre - radius < maxRadius) {
+            for (int ring = firstRing; ring <= lastRing; ring++) {
+                for (int n = 0, sector = firstSector; n < sectorCount; n++, sector = next(sector)) {
+                    count = collectRadius(ring * sectors + sector, cx, cy, cz, radius2, out, heap, count);
+                }
+            }
+        }
+        if (centre + radius >= maxRadius) {
+            count = collectRadius(overflowCell, cx, cy, cz, radius2, out, heap, count);
+        }
+        return count;
+    }
+
+    private int collectRadius(int cell, float cx, float cy, float cz, double radius2, int[] out, Neighbours heap,
+                              int count) {
+        for (int slot = cellStart[cell], end = cellStart[cell + 1]; slot < end; slot++) {
+            float dx = sortedX[slot] - cx;
+            float dy = sortedY[slot] - cy;
+            float dz = sortedZ[slot] - cz;
+            double distance2 = (double) dx * dx + (double) dy * dy + (double) dz * dz;
+            if (distance2 <= radius2) {
+                if (heap != null) {
+                    heap.offer(order[slot], distance2);
+                } else if (count < out.length) {
+                    out[count] = order[slot];
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 从first到last（含）逆时针经过的扇区数
+     */
+    private int sectorSpan(int first, int last, double angle) {
+        if (angle >= Math.PI && first == last) {
+            // 弧长接近整圈时首尾落在同一扇区
+            return sectors;
+        }
+        int span = last - first;
+        if (span < 0) {
+            span += sectors;
+        }
+        return span + 1;
+    }
+
+    private int next(int sector) {
+        return sector + 1 == sectors ? 0 : sector + 1;
+    }
+
+    private static boolean insideArc(float pseudoAngle, float from, float to) {
+        return from <= to
+                ? pseudoAngle >= from && pseudoAngle <= to
+                : pseudoAngle >= from || pseudoAngle <= to;
+    }
+
+    // ========== Getter方法 ==========
+
+    /**
+     * 已索引的粒子数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getRings() {
+        return rings;
+    }
+
+    public int getSectors() {
+        return sectors;
+    }
+
+    public float getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * 最近邻候选 - 按距离平方的最大堆
+     */
+    private static final class Neighbours {
+        private final int[] indices;
+        private final double[] distances2;
+        private int size;
+
+        Neighbours(int capacity) {
+            this.indices = new int[capacity];
+            this.distances2 = new double[capacity];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        double maxDistance2() {
+            return distances2[0];
+        }
+
+        void offer(int index, double distance2) {
+            if (size < indices.length) {
+                int i = size++;
+                // 上浮
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances2[parent] >= distance2) {
+                        break;
+                    }
+                    indices[i] = indices[parent];
+                    distances2[i] = distances2[parent];
+                    i = parent;
+                }
+                indices[i] = index;
+                distances2[i] = distance2;
+            } else if (distance2 < distances2[0]) {
+                siftDown(index, distance2, size);
+            }
+        }
+
+        /**
+         * 用新元素替换堆顶并下沉
+         */
+        private void siftDown(int index, double distance2, int heapSize) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && distances2[child + 1] > distances2[child]) {
+                    child++;
+                }
+                if (distances2[child] <= distance2) {
+                    break;
+                }
+                indices[i] = indices[child];
+                distances2[i] = distances2[child];
+                i = child;
+            }
+            indices[i] = index;
+            distances2[i] = distance2;
+        }
+
+        /**
+         * 按距离从近到远写出（堆排序，清空堆）
+         */
+        int drainSorted(int[] out) {
+            int count = size;
+            for (int last = size - 1; last >= 0; last--) {
+                out[last] = indices[0];
+                int index = indices[last];
+                double distance2 = distances2[last];
+                siftDown(index, distance2, last);
+            }
+            size = 0;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.simulation;
+
+/**
+ * 吸积盘圆轨道速度场查找表
+ * 薄盘流体在赤道面上作开普勒圆轨道运动（与粒子相同，从+X转向+Z），每个半径环上的轨道角速度Ω和时间膨胀1/u^t
+ * 只取决于黑洞质量、自旋和半径，按环预先算好。光线命中吸积盘时的频移因子
+ * g = 1 / (u^t · (1 − Ω·L))，L为光子绕竖直轴的角动量（E = 1，与流体转向相同为正），查表后一次乘除即可求出，
+ * 不需要逐样本开方。克尔圆轨道：Ω = 1 / (r^{3/2} + a)，u^t = (r^{3/2} + a) / (r^{3/4}·sqrt(r^{3/2} − 3r^{1/2} + 2a))
+ */
+public final class DiskOrbitTable {
+    // 默认环数
+    public static final int DEFAULT_RINGS = 256;
+
+    // 光子轨道以内不存在圆轨道，时间膨胀因子和多普勒分母的下限
+    private static final double MIN_INVERSE_TIME = 1e-3;
+    private static final float MIN_DOPPLER = 1e-3f;
+
+    private final float mass;
+    private final float spin;
+    private final float innerRadius;
+    private final float outerRadius;
+    private final float ringScale;
+
+    // 按环排列：1/u^t和角速度Ω（场景单位）
+    private final float[] inverseTime;
+    private final float[] angularVelocity;
+
+    /**
+     * 构造函数 - 使用默认环数
+     */
+    public DiskOrbitTable(float mass, float spin, float innerRadius, float outerRadius) {
+        this(mass, spin, innerRadius, outerRadius, DEFAULT_RINGS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param mass        引力半径GM/c²（场景长度单位）
+     * @param spin        无量纲自旋a/M，正值与流体转向相同
+     * @param innerRadius 吸积盘内半径（Boyer–Lindquist半径，场景单位）
+     * @param outerRadius 吸积盘外半径
+     * @param rings       环数
+     */
+    public DiskOrbitTable(float mass, float spin, float innerRadius, float outerRadius, int rings) {
+        if (!(mass > 0.0f) || !(Math.abs(spin) <= 1.0f) || !(innerRadius > 0.0f) || !(outerRadius > innerRadius)
+                || rings < 2) {
+            throw new IllegalArgumentException("Invalid disk orbit table: mass " + mass + ", spin " + spin
+                    + ", radii " + innerRadius + ".." + outerRadius + ", rings " + rings);
+        }
+        this.mass = mass;
+        this.spin = spin;
+        this.innerRadius = innerRadius;
+        this.outerRadius = outerRadius;
+        this.ringScale = (rings - 1) / (outerRadius - innerRadius);
+        this.inverseTime = new float[rings];
+        this.angularVelocity = new float[rings];
+
+        double a = spin;
+        for (int i = 0; i < rings; i++) {
+            double r = (innerRadius + i / (double) ringScale) / mass;
+            double sqrtR = Math.sqrt(r);
+            double keplerian = r * sqrtR + a;
+            double denominator = r * sqrtR - 3.0 * sqrtR + 2.0 * a;
+            inverseTime[i] = (float) Math.max(
+                    Math.sqrt(r * sqrtR * Math.max(denominator, 0.0)) / keplerian, MIN_INVERSE_TIME);
+            angularVelocity[i] = (float) (1.0 / (keplerian * mass));
+        }
+    }
+
+    /**
+     * 检查表是否对应给定的黑洞和吸积盘参数
+     */
+    public boolean matches(float mass, float spin, float innerRadius, float outerRadius) {
+        return this.mass == mass && this.spin == spin
+                && this.innerRadius == innerRadius && this.outerRadius == outerRadius;
+    }
+
+    /**
+     * 吸积盘上半径radius处发射、角动量为angularMomentum的光子到达静止观测者（无穷远）时的频移因子
+     * 超出表范围的半径取端点环
+     *
+     * @param radius          发射点半径（场景单位）
+     * @param angularMomentum 光子角动量L/E（场景单位，与流体转向相同为正）
+     */
+    public float redshift(float radius, float angularMomentum) {
+        float position = (radius - innerRadius) * ringScale;
+        position = position > 0.0f ? Math.min(position, inverseTime.length - 1) : 0.0f;
+        int i = Math.min((int) position, inverseTime.length - 2);
+        float fraction = position - i;
+        float inverse = inverseTime[i] + (inverseTime[i + 1] - inverseTime[i]) * fraction;
+        float omega = angularVelocity[i] + (angularVelocity[i + 1] - angularVelocity[i]) * fraction;
+        return inverse / Math.max(1.0f - omega * angularMomentum, MIN_DOPPLER);
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public float getMass() {
+        return mass;
+    }
+
+    public float getSpin() {
+        return spin;
+    }
+
+    public float getInnerRadius() {
+        return innerRadius;
+    }
+
+    public float getOuterRadius() {
+        return outerRadius;
+    }
+}
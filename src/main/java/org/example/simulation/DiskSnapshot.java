@@ -0,0 +1,330 @@
+package org.example.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 吸积盘快照文件（小端序、按列存储）
+ * 文件由80字节文件头和x/y/z/温度/轨道速度五个float列依次组成，自引力模式下再附加速度矢量三列；
+ * 读取时每列单独内存映射，打开文件的开销与粒子数无关，页面在首次访问时才由操作系统载入。
+ * 版本1的文件（64字节文件头，没有引力模型字段）按开普勒模式读取
+ */
+public final class DiskSnapshot {
+    // 文件头魔数："BHDS"的小端序
+    public static final int MAGIC = 0x53444842;
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 80;
+    // 版本1的文件头长度和列数
+    private static final int V1_HEADER_BYTES = 64;
+    private static final int BASE_COLUMNS = 5;
+
+    // 写出时的缓冲区大小
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * 数据列（按文件中的顺序）
+     */
+    public enum Column {
+        X,
+        Y,
+        Z,
+        TEMPERATURE,
+        // 切向轨道速度v = ω·r；保存原值而非角速度，保证读写往返逐位一致
+        VELOCITY,
+        // 自引力模式的速度矢量（仅在该模式下写出）
+        VELOCITY_X,
+        VELOCITY_Y,
+        VELOCITY_Z
+    }
+
+    private final Path path;
+    private final int size;
+    private final int particleCount;
+    private final long seed;
+    private final float thickness;
+    private final float turbulenceStrength;
+    private final AccretionDisk.IntegrationMode integrationMode;
+    private final float mass;
+    private final float innerRadius;
+    private final float outerRadius;
+    private final long tickCount;
+    private final AccretionDisk.GravityMode gravityMode;
+    private final float diskMassFraction;
+    private final float openingAngle;
+    private final float softeningFactor;
+    // 文件中没有的列为null
+    private final FloatBuffer[] columns;
+
+    private DiskSnapshot(Path path, ByteBuffer header, FloatBuffer[] columns) {
+        this.path = path;
+        this.size = header.getInt(16);
+        this.particleCount = header.getInt(20);
+        this.seed = header.getLong(24);
+        this.thickness = header.getFloat(32);
+        this.turbulenceStrength = header.getFloat(36);
+        this.integrationMode = AccretionDisk.IntegrationMode.values()[header.getInt(40)];
+        this.mass = header.getFloat(44);
+        this.innerRadius = header.getFloat(48);
+        this.outerRadius = header.getFloat(52);
+        // 早期文件此处为保留的0，恢复后湍流从第0步的序列开始
+        this.tickCount = header.getLong(56);
+        if (header.getInt(4) >= 2) {
+            this.gravityMode = AccretionDisk.GravityMode.values()[header.getInt(64)];
+            this.diskMassFraction = header.getFloat(68);
+            this.openingAngle = header.getFloat(72);
+            this.softeningFactor = header.getFloat(76);
+        } else {
+            this.gravityMode = AccretionDisk.GravityMode.KEPLERIAN;
+            this.diskMassFraction = Float.NaN;
+            this.openingAngle = Float.NaN;
+            this.softeningFactor = Float.NaN;
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * 打开快照文件并映射各列（只读）
+     */
+    public static DiskSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < V1_HEADER_BYTES) {
+                throw new IOException("Not a disk snapshot (file too short): " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.limit((int) Math.min(fileSize, HEADER_BYTES));
+            readFully(channel, header, 0);
+            header.clear();
+
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a disk snapshot (bad magic): " + path);
+            }
+            int version = header.getInt(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported disk snapshot version " + version + ": " + path);
+            }
+            // 文件头长度和列数写在文件中，同一版本内追加的字段不影响旧读取端
+            int headerBytes = header.getInt(8);
+            int columnCount = header.getInt(12);
+            int size = header.getInt(16);
+            int mode = header.getInt(40);
+            int gravity = version >= 2 ? header.getInt(64) : 0;
+            if (headerBytes < (version >= 2 ? HEADER_BYTES : V1_HEADER_BYTES) || columnCount < BASE_COLUMNS
+                    || size < 0 || mode < 0 || mode >= AccretionDisk.IntegrationMode.values().length
+                    || gravity < 0 || gravity >= AccretionDisk.GravityMode.values().length) {
+                throw new IOException("Corrupt disk snapshot header: " + path);
+            }
+            long columnBytes = (long) size * Float.BYTES;
+            if (columnBytes > Integer.MAX_VALUE) {
+                throw new IOException("Disk snapshot column exceeds 2 GB: " + path);
+            }
+            if (fileSize < headerBytes + columnBytes * columnCount) {
+                throw new IOException("Truncated disk snapshot: " + path);
+            }
+
+            // 映射在通道关闭后仍然有效
+            FloatBuffer[] columns = new FloatBuffer[Column.values().length];
+            for (int c = 0; c < Math.min(columnCount, columns.length); c++) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                        headerBytes + columnBytes * c, columnBytes);
+                columns[c] = mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            }
+            return new DiskSnapshot(path, header, columns);
+        }
+    }
+
+    /**
+     * 写出快照：先写入同目录下的临时文件，完成后再替换目标文件，中途失败不会破坏已有快照
+     *
+     * @param velocityX 自引力模式的速度矢量，尚未分配（开普勒模式或未推进过）时为null，不写出这三列
+     */
+    static void write(Path path, AccretionDisk disk, BlackHole blackHole, int size,
+                      float[] x, float[] y, float[] z, float[] temperature, float[] velocity,
+                      float[] velocityX, float[] velocityY, float[] velocityZ) throws IOException {
+        float[][] data = velocityX != null
+                ? new float[][]{x, y, z, temperature, velocity, velocityX, velocityY, velocityZ}
+                : new float[][]{x, y, z, temperature, velocity};
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(HEADER_BYTES)
+                    .putInt(data.length)
+                    .putInt(size)
+                    .putInt(disk.getParticleCount())
+                    .putLong(disk.getSeed())
+                    .putFloat(disk.getThickness())
+                    .putFloat(disk.getTurbulenceStrength())
+                    .putInt(disk.getIntegrationMode().ordinal())
+                    .putFloat(blackHole.getMass())
+                    .putFloat(blackHole.getAccretionDiskInnerRadius())
+                    .putFloat(blackHole.getAccretionDiskOuterRadius())
+                    .putLong(disk.getTickCount())
+                    .putInt(disk.getGravityMode().ordinal())
+                    .putFloat(disk.getDiskMassFraction())
+                    .putFloat(disk.getOpeningAngle())
+                    .putFloat(disk.getSofteningFactor());
+            // 保留字段补零
+            while (buffer.position() < HEADER_BYTES) {
+                buffer.put((byte) 0);
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+
+            int floatsPerWrite = WRITE_BUFFER_BYTES / Float.BYTES;
+            for (float[] column : data) {
+                for (int from = 0; from < size; from += floatsPerWrite) {
+                    int count = Math.min(floatsPerWrite, size - from);
+                    buffer.clear();
+                    buffer.asFloatBuffer().put(column, from, count);
+                    buffer.limit(count * Float.BYTES);
+                    writeFully(channel, buffer);
+                }
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * 文件中是否包含该列（速度矢量列只在自引力模式下写出）
+     */
+    public boolean hasColumn(Column column) {
+        return columns[column.ordinal()] != null;
+    }
+
+    /**
+     * 获取一列的只读视图（每次返回独立的位置和界限，可在多个线程中分别使用）
+     *
+     * @throws IllegalStateException 文件中没有该列
+     */
+    public FloatBuffer getColumn(Column column) {
+        FloatBuffer buffer = columns[column.ordinal()];
+        if (buffer == null) {
+            throw new IllegalStateException("Disk snapshot has no " + column + " column: " + path);
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 读取单个值（绝对位置访问，只载入所在页面）
+     */
+    public float get(Column column, int index) {
+        FloatBuffer buffer = columns[column.ordinal()];
+        if (buffer == null) {
+            throw new IllegalStateException("Disk snapshot has no " + column + " column: " + path);
+        }
+        return buffer.get(index);
+    }
+
+    /**
+     * 把一列复制到数组
+     */
+    public void copyColumn(Column column, float[] target) {
+        getColumn(column).get(target, 0, size);
+    }
+
+    // ========== Getter方法 ==========
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 快照中的粒子数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 吸积盘初始化时的粒子数
+     */
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public float getThickness() {
+        return thickness;
+    }
+
+    public float getTurbulenceStrength() {
+        return turbulenceStrength;
+    }
+
+    public AccretionDisk.IntegrationMode getIntegrationMode() {
+        return integrationMode;
+    }
+
+    public float getMass() {
+        return mass;
+    }
+
+    public float getInnerRadius() {
+        return innerRadius;
+    }
+
+    public float getOuterRadius() {
+        return outerRadius;
+    }
+
+    /**
+     * 写出快照时吸积盘已执行的update()次数
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public AccretionDisk.GravityMode getGravityMode() {
+        return gravityMode;
+    }
+
+    /**
+     * 自引力参数（版本1的文件没有这些字段，为NaN）
+     */
+    public float getDiskMassFraction() {
+        return diskMassFraction;
+    }
+
+    public float getOpeningAngle() {
+        return openingAngle;
+    }
+
+    public float getSofteningFactor() {
+        return softeningFactor;
+    }
+}
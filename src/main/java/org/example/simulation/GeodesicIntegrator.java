@@ -0,0 +1,265 @@
+package org.example.simulation;
+
+/**
+ * 史瓦西零测地线积分器
+ * 在光线所在平面内积分光子轨道方程 d²u/dφ² = -u + (3/2)·r_s·u²（u = 1/r），
+ * 使用Dormand–Prince 5(4)嵌入式龙格-库塔方法按误差自适应步长；
+ * 步长终点对齐到盘面交线所在的角度，从而精确得到吸积盘穿越半径，
+ * 光线越过透镜半径向外运动后用弱场近似解析求出剩余偏折
+ */
+public class GeodesicIntegrator {
+    // 光线结局
+    public static final int CAPTURED = 0;
+    public static final int ESCAPED = 1;
+    public static final int DISK = 2;
+    public static final int EXHAUSTED = 3;
+
+    // Dormand–Prince系数
+    private static final double A21 = 1.0 / 5.0;
+    private static final double A31 = 3.0 / 40.0, A32 = 9.0 / 40.0;
+    private static final double A41 = 44.0 / 45.0, A42 = -56.0 / 15.0, A43 = 32.0 / 9.0;
+    private static final double A51 = 19372.0 / 6561.0, A52 = -25360.0 / 2187.0,
+            A53 = 64448.0 / 6561.0, A54 = -212.0 / 729.0;
+    private static final double A61 = 9017.0 / 3168.0, A62 = -355.0 / 33.0, A63 = 46732.0 / 5247.0,
+            A64 = 49.0 / 176.0, A65 = -5103.0 / 18656.0;
+    private static final double B1 = 35.0 / 384.0, B3 = 500.0 / 1113.0, B4 = 125.0 / 192.0,
+            B5 = -2187.0 / 6784.0, B6 = 11.0 / 84.0;
+    private static final double E1 = 71.0 / 57600.0, E3 = -71.0 / 16695.0, E4 = 71.0 / 1920.0,
+            E5 = -17253.0 / 339200.0, E6 = 22.0 / 525.0, E7 = -1.0 / 40.0;
+
+    // 最大扫过角度（接近光子球的光线会绕行多圈）
+    private static final double MAX_PHASE = 8.0 * Math.PI;
+
+    private final double schwarzschildRadius;
+    private double tolerance = 1e-6;
+    private double lensingRadius;
+    private int maxSteps = 500;
+
+    /**
+     * 积分结果（由调用方复用，避免逐光线分配）
+     */
+    public static final class Result {
+        public int outcome;
+        // 吸积盘命中时的半径和扫过角度
+        public float diskRadius;
+        public float diskPhase;
+        // 逃逸光线的出射方向在平面内的角度（从黑洞指向相机的方向起算）
+        public float exitAngle;
+        // 导数求值次数（包括被拒绝的步）
+        public int evaluations;
+        public int acceptedSteps;
+        public int rejectedSteps;
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param schwarzschildRadius 史瓦西半径（事件视界半径）
+     */
+    public GeodesicIntegrator(float schwarzschildRadius) {
+        this.schwarzschildRadius = schwarzschildRadius;
+        this.lensingRadius = 25.0 * schwarzschildRadius;
+    }
+
+    /**
+     * 积分一条光线
+     *
+     * @param cameraDistance 相机到黑洞的距离
+     * @param angle          相机处观测到的光线方向与黑洞方向的夹角（弧度，0到π）
+     * @param nodePhase      光线平面与盘面交线在[0, π)内的角度，光线平面与盘面重合时传NaN
+     * @param innerRadius    吸积盘内半径
+     * @param outerRadius    吸积盘外半径
+     */
+    public void trace(double cameraDistance, double angle, double nodePhase,
+                      double innerRadius, double outerRadius, Result result) {
+        double rs = schwarzschildRadius;
+        result.evaluations = 0;
+        result.acceptedSteps = 0;
+        result.rejectedSteps = 0;
+
+        double u = 1.0 / cameraDistance;
+        if (u >= 1.0 / rs) {
+            result.outcome = CAPTURED;
+            return;
+        }
+
+        // 静止观测者测得的夹角θ对应碰撞参数 b = r·sinθ / sqrt(1 - r_s/r)，
+        // 代入 (du/dφ)² = 1/b² - u²(1 - r_s·u) 得 du/dφ = u·sqrt(1 - r_s·u)·cotθ
+        double sinAngle = Math.sin(angle);
+        if (sinAngle < 1e-9) {
+            // 径向光线：向内必被捕获，向外直接逃逸
+            if (angle < Math.PI / 2) {
+                result.outcome = CAPTURED;
+            } else {
+                result.outcome = ESCAPED;
+                result.exitAngle = 0.0f;
+            }
+            return;
+        }
+        double du = u * Math.sqrt(1.0 - rs * u) * Math.cos(angle) / sinAngle;
+
+        double phase = 0.0;
+        double nextNode = Double.isNaN(nodePhase) ? Double.POSITIVE_INFINITY : nodePhase;
+        double h = 0.05;
+
+        // FSAL：k1即上一步终点的导数
+        double k1u = du;
+        double k1d = acceleration(u);
+        result.evaluations++;
+
+        int steps = 0;
+        while (steps < maxSteps) {
+            // 盘面穿越（包括起点恰好在盘面上的情况）
+            if (phase >= nextNode) {
+                double radius = 1.0 / u;
+                if (radius > innerRadius && radius < outerRadius) {
+                    result.outcome = DISK;
+                    result.diskRadius = (float) radius;
+                    result.diskPhase = (float) phase;
+                    return;
+                }
+                nextNode += Math.PI;
+            }
+
+            // 越过透镜半径并向外运动：解析出射
+            if (du < 0.0 && u < 1.0 / lensingRadius) {
+                result.outcome = ESCAPED;
+                result.exitAngle = (float) (phase + asymptoticAngle(schwarzschildRadius, u, du));
+                return;
+            }
+
+            if (phase >= MAX_PHASE) {
+                break;
+            }
+
+            // 步长终点不越过下一个盘面交点
+            double step = Math.min(h, Math.min(nextNode, MAX_PHASE) - phase);
+
+            double u2 = u + step * A21 * k1u;
+            double d2 = du + step * A21 * k1d;
+            double k2u = d2, k2d = acceleration(u2);
+
+            double u3 = u + step * (A31 * k1u + A32 * k2u);
+            double d3 = du + step * (A31 * k1d + A32 * k2d);
+            double k3u = d3, k3d = acceleration(u3);
+
+            double u4 = u + step * (A41 * k1u + A42 * k2u + A43 * k3u);
+            double d4 = du + step * (A41 * k1d + A42 * k2d + A43 * k3d);
+            double k4u = d4, k4d = acceleration(u4);
+
+            double u5 = u + step * (A51 * k1u + A52 * k2u + A53 * k3u + A54 * k4u);
+            double d5 = du + step * (A51 * k1d + A52 * k2d + A53 * k3d + A54 * k4d);
+            double k5u = d5, k5d = acceleration(u5);
+
+            double u6 = u + step * (A61 * k1u + A62 * k2u + A63 * k3u + A64 * k4u + A65 * k5u);
+            double d6 = du + step * (A61 * k1d + A62 * k2d + A63 * k3d + A64 * k4d + A65 * k5d);
+            double k6u = d6, k6d = acceleration(u6);
+
+            double newU = u + step * (B1 * k1u + B3 * k3u + B4 * k4u + B5 * k5u + B6 * k6u);
+            double newDu = du + step * (B1 * k1d + B3 * k3d + B4 * k4d + B5 * k5d + B6 * k6d);
+            double k7u = newDu, k7d = acceleration(newU);
+            result.evaluations += 6;
+
+            // 嵌入式四阶解的误差估计
+            double errU = step * (E1 * k1u + E3 * k3u + E4 * k4u + E5 * k5u + E6 * k6u + E7 * k7u);
+            double errD = step * (E1 * k1d + E3 * k3d + E4 * k4d + E5 * k5d + E6 * k6d + E7 * k7d);
+            double error = Math.max(
+                    Math.abs(errU) / (tolerance * (1.0 / rs) + tolerance * Math.abs(newU)),
+                    Math.abs(errD) / (tolerance * (1.0 / rs) + tolerance * Math.abs(newDu)));
+
+            double factor = error == 0.0 ? 5.0 : Math.min(5.0, Math.max(0.2, 0.9 * Math.pow(error, -0.2)));
+            if (error > 1.0) {
+                h = step * factor;
+                result.rejectedSteps++;
+                continue;
+            }
+
+            phase += step;
+            u = newU;
+            du = newDu;
+            k1u = k7u;
+            k1d = k7d;
+            h = Math.max(h, step) * factor;
+            steps++;
+            result.acceptedSteps++;
+
+            // 事件视界
+            if (u >= 1.0 / rs) {
+                result.outcome = CAPTURED;
+                return;
+            }
+        }
+
+        result.outcome = EXHAUSTED;
+    }
+
+    /**
+     * 光子轨道方程右端：d²u/dφ² = -u + 1.5·r_s·u²
+     */
+    private double acceleration(double u) {
+        return -u + 1.5 * schwarzschildRadius * u * u;
+    }
+
+    /**
+     * 从当前位置到无穷远处还需扫过的角度
+     * 弱场一阶解 u = sinψ/b + (r_s/2b²)(1 + cos²ψ) 在 ψ = π + r_s/b 处到达无穷远，
+     * 由当前状态迭代拟合出b和ψ即可求出剩余角度
+     */
+    static double asymptoticAngle(double rs, double u, double du) {
+        double inverseImpact = Math.sqrt(u * u + du * du);
+        double psi = Math.atan2(u, du);
+        if (psi < 0.0) {
+            psi += 2.0 * Math.PI;
+        }
+        for (int i = 0; i < 3; i++) {
+            double k = 0.5 * rs * inverseImpact * inverseImpact;
+            double sinPsi = Math.sin(psi);
+            double cosPsi = Math.cos(psi);
+            double flatU = u - k * (1.0 + cosPsi * cosPsi);
+            double flatDu = du + 2.0 * k * sinPsi * cosPsi;
+            inverseImpact = Math.sqrt(flatU * flatU + flatDu * flatDu);
+            psi = Math.atan2(flatU, flatDu);
+            if (psi < 0.0) {
+                // 已越过直线部分的零点（外行光线ψ接近π）
+                psi += 2.0 * Math.PI;
+            }
+        }
+        return Math.PI + rs * inverseImpact - psi;
+    }
+
+    // ========== Getter / Setter方法 ==========
+
+    public float getSchwarzschildRadius() {
+        return (float) schwarzschildRadius;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * 设置相对误差容限（越小越精确，步数越多）
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getLensingRadius() {
+        return lensingRadius;
+    }
+
+    /**
+     * 设置透镜半径：光线在此半径之外向外运动时直接解析出射
+     */
+    public void setLensingRadius(double lensingRadius) {
+        this.lensingRadius = lensingRadius;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public void setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.simulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 吸积盘粒子的顶点数据（双缓冲）
+ * 每个粒子6个float：位置x/y/z + 颜色r/g/b，与星空VBO的布局相同，可直接传给glBufferData()；
+ * 数据位于本地字节序的直接缓冲区中。AccretionDisk.update()写入后台缓冲区后再交换，
+ * 读取方拿到的前台缓冲区在下一次update()期间保持不变，直到再下一次update()才会被覆盖
+ */
+public class ParticleVertexBuffer {
+    public static final int FLOATS_PER_VERTEX = 6;
+
+    private final FloatBuffer[] buffers = new FloatBuffer[2];
+    private final int[] counts = new int[2];
+    // 前台缓冲区下标
+    private volatile int front;
+    private volatile long frame;
+
+    ParticleVertexBuffer() {
+        buffers[0] = allocate(0);
+        buffers[1] = allocate(0);
+    }
+
+    private static FloatBuffer allocate(int vertices) {
+        return ByteBuffer.allocateDirect(Math.max(vertices, 1) * FLOATS_PER_VERTEX * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    /**
+     * 获取可写入的后台缓冲区（容量不足时只重新分配后台缓冲区，前台缓冲区不受影响）
+     */
+    FloatBuffer back(int vertices) {
+        int back = 1 - front;
+        if (buffers[back].capacity() < vertices * FLOATS_PER_VERTEX) {
+            buffers[back] = allocate(Math.max(vertices, buffers[back].capacity() / FLOATS_PER_VERTEX * 2));
+        }
+        return buffers[back];
+    }
+
+    /**
+     * 交换前后台缓冲区
+     */
+    void publish(int vertices) {
+        int back = 1 - front;
+        counts[back] = vertices;
+        // volatile写保证读取方看到交换后的下标时，缓冲区内容和顶点数已经写完
+        frame++;
+        front = back;
+    }
+
+    /**
+     * 当前帧的只读顶点数据：位置0，界限为顶点数×6
+     * 返回的视图不复制数据，顶点数为remaining() / FLOATS_PER_VERTEX
+     */
+    public FloatBuffer getVertices() {
+        int current = front;
+        FloatBuffer view = buffers[current].asReadOnlyBuffer();
+        view.limit(counts[current] * FLOATS_PER_VERTEX);
+        return view;
+    }
+
+    /**
+     * 已发布的帧数，可用于判断数据是否更新
+     */
+    public long getFrame() {
+        return frame;
+    }
+}
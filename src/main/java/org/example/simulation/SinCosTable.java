@@ -0,0 +1,48 @@
+package org.example.simulation;
+
+/**
+ * 正弦/余弦查找表
+ * 在[0, 2π)上等距采样并线性插值，最大误差约3e-7，用于粒子轨道的增量旋转
+ */
+final class SinCosTable {
+    private static final int SIZE = 4096;
+    private static final int MASK = SIZE - 1;
+    private static final int QUARTER = SIZE / 4;
+    private static final double TWO_PI = 2.0 * Math.PI;
+    private static final float INDEX_SCALE = (float) (SIZE / TWO_PI);
+
+    private static final float[] SIN = new float[SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            SIN[i] = (float) Math.sin(i * TWO_PI / SIZE);
+        }
+    }
+
+    private SinCosTable() {
+    }
+
+    /**
+     * 查表正弦
+     */
+    static float sin(float angle) {
+        return lookup(angle, 0);
+    }
+
+    /**
+     * 查表余弦（cos θ = sin(θ + π/2)）
+     */
+    static float cos(float angle) {
+        return lookup(angle, QUARTER);
+    }
+
+    private static float lookup(float angle, int offset) {
+        float position = angle * INDEX_SCALE;
+        float floor = (float) Math.floor(position);
+        int index = (int) (long) floor + offset;
+        float fraction = position - floor;
+        float a = SIN[index & MASK];
+        float b = SIN[(index + 1) & MASK];
+        return a + (b - a) * fraction;
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * 轨迹文件格式（小端序）
+ * 文件头 | 数据块... | 索引 | 结尾（索引位置 + 魔数）
+ * 每个数据块包含固定数量的帧，经Deflater压缩；块首是该块的量化步长，块内第一帧存绝对量化坐标，
+ * 其后各帧存相对上一帧的差值，坐标按x/y/z分列、以zigzag变长整数编码
+ */
+final class TrajectoryFormat {
+    // "BHTR"、"CHNK"、"BHTI"的小端序
+    static final int MAGIC = 0x52544842;
+    static final int CHUNK_MAGIC = 0x4b4e4843;
+    static final int INDEX_MAGIC = 0x49544842;
+    static final int VERSION = 1;
+
+    // 魔数、版本、文件头长度、每块帧数、记录间隔、量化精度位数、保留(long)
+    static final int HEADER_BYTES = 32;
+    // 魔数、原始长度、压缩后长度、帧数
+    static final int CHUNK_HEADER_BYTES = 16;
+    // 索引位置(long)、魔数
+    static final int TRAILER_BYTES = 12;
+
+    private TrajectoryFormat() {
+    }
+
+    /**
+     * 量化坐标（超出int范围时截断）
+     */
+    static int quantize(float value, double inverseQuantum) {
+        long q = Math.round(value * inverseQuantum);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, q));
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of trajectory file");
+            }
+        }
+    }
+
+    /**
+     * 可增长的字节缓冲区（块内未压缩数据）
+     */
+    static final class ByteSink {
+        byte[] data = new byte[1 << 16];
+        int length;
+
+        void clear() {
+            length = 0;
+        }
+
+        void ensure(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                data[length++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        /**
+         * zigzag变长整数：绝对值小的差值只占1~2字节
+         */
+        void writeSignedVarInt(int value) {
+            ensure(5);
+            int zigzag = (value << 1) ^ (value >> 31);
+            while ((zigzag & ~0x7f) != 0) {
+                data[length++] = (byte) ((zigzag & 0x7f) | 0x80);
+                zigzag >>>= 7;
+            }
+            data[length++] = (byte) zigzag;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                data[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * 字节读取游标
+     */
+    static final class ByteSource {
+        private final byte[] data;
+        private final int length;
+        private int position;
+
+        ByteSource(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        long readLong() throws IOException {
+            check(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value |= (data[position++] & 0xffL) << (i * 8);
+            }
+            return value;
+        }
+
+        int readSignedVarInt() throws IOException {
+            int zigzag = readVarInt();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                check(1);
+                byte b = data[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in trajectory chunk");
+        }
+
+        private void check(int bytes) throws IOException {
+            if (position + bytes > length) {
+                throw new IOException("Truncated trajectory chunk");
+            }
+        }
+    }
+}
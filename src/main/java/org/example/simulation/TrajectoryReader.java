@@ -0,0 +1,370 @@
+package org.example.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 轨迹文件读取器
+ * 打开时只读取文件头和末尾的索引；读取某一帧时定位所在块，解压后从块内第一帧依次解码到目标帧。
+ * 记录器未正常关闭（进程崩溃或被终止）的文件没有索引，此时从文件头之后依次扫描块首，解压各块重建索引，
+ * 末尾写了一半的块被忽略。最近解压的块会被缓存，按顺序读取同一块内的帧不会重复解压。非线程安全
+ */
+public class TrajectoryReader implements Closeable {
+
+    /**
+     * 一帧粒子位置
+     */
+    public static final class Frame {
+        private final long tick;
+        private final int count;
+        private final double quantum;
+        private final float[] x;
+        private final float[] y;
+        private final float[] z;
+
+        private Frame(long tick, int count, double quantum) {
+            this.tick = tick;
+            this.count = count;
+            this.quantum = quantum;
+            this.x = new float[count];
+            this.y = new float[count];
+            this.z = new float[count];
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 所在块的量化步长（坐标的最大误差为其一半）
+         */
+        public double getQuantum() {
+            return quantum;
+        }
+
+        public float[] getX() {
+            return x;
+        }
+
+        public float[] getY() {
+            return y;
+        }
+
+        public float[] getZ() {
+            return z;
+        }
+    }
+
+    private final FileChannel channel;
+    private final int framesPerChunk;
+    private final int interval;
+    private final int precisionBits;
+    // 由文件末尾的索引读出，或在没有索引时扫描数据块重建
+    private long[] chunkOffsets;
+    private long[] ticks;
+    private boolean recovered;
+
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer chunkHeader = ByteBuffer.allocate(TrajectoryFormat.CHUNK_HEADER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private byte[] compressed = new byte[0];
+    private byte[] raw = new byte[0];
+    private int rawLength;
+    private int cachedChunk = -1;
+    private int[][] decoded = {new int[0], new int[0], new int[0]};
+
+    /**
+     * 打开轨迹文件
+     */
+    public TrajectoryReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < TrajectoryFormat.HEADER_BYTES) {
+                throw new IOException("Not a trajectory file (file too short): " + path);
+            }
+            ByteBuffer header = read(0, TrajectoryFormat.HEADER_BYTES);
+            if (header.getInt(0) != TrajectoryFormat.MAGIC) {
+                throw new IOException("Not a trajectory file (bad magic): " + path);
+            }
+            int version = header.getInt(4);
+            if (version != TrajectoryFormat.VERSION) {
+                throw new IOException("Unsupported trajectory file version " + version + ": " + path);
+            }
+            this.framesPerChunk = header.getInt(12);
+            this.interval = header.getInt(16);
+            this.precisionBits = header.getInt(20);
+
+            if (framesPerChunk <= 0) {
+                throw new IOException("Corrupt trajectory header: " + path);
+            }
+
+            long indexOffset = -1L;
+            if (fileSize >= TrajectoryFormat.HEADER_BYTES + TrajectoryFormat.TRAILER_BYTES) {
+                ByteBuffer trailer = read(fileSize - TrajectoryFormat.TRAILER_BYTES, TrajectoryFormat.TRAILER_BYTES);
+                if (trailer.getInt(8) == TrajectoryFormat.MAGIC) {
+                    indexOffset = trailer.getLong(0);
+                }
+            }
+            if (indexOffset < TrajectoryFormat.HEADER_BYTES || indexOffset > fileSize - TrajectoryFormat.TRAILER_BYTES) {
+                // 记录器没有关闭：数据块是按顺序追加的，从块首重建索引
+                recoverIndex(fileSize);
+                return;
+            }
+            ByteBuffer index = read(indexOffset, (int) (fileSize - TrajectoryFormat.TRAILER_BYTES - indexOffset));
+            if (index.getInt() != TrajectoryFormat.INDEX_MAGIC) {
+                throw new IOException("Corrupt trajectory index: " + path);
+            }
+            int chunkCount = index.getInt();
+            int frameCount = index.getInt();
+            if (chunkCount < 0 || frameCount < 0
+                    || (long) frameCount > (long) chunkCount * framesPerChunk
+                    || index.remaining() != (chunkCount + frameCount) * 8L) {
+                throw new IOException("Corrupt trajectory index: " + path);
+            }
+            this.chunkOffsets = new long[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                chunkOffsets[c] = index.getLong();
+            }
+            this.ticks = new long[frameCount];
+            for (int f = 0; f < frameCount; f++) {
+                ticks[f] = index.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 没有索引时从文件头之后依次扫描数据块，解压后读出各帧的更新序号
+     * 记录器只在关闭时写出不满的块，因此除最后一块外每块都应有framesPerChunk帧；
+     * 遇到块首损坏、长度超出文件或无法解压的块时停止（崩溃时写了一半的块）
+     */
+    private void recoverIndex(long fileSize) throws IOException {
+        long[] offsets = new long[16];
+        long[] frameTicks = new long[64];
+        int chunkCount = 0;
+        int frameCount = 0;
+        boolean partial = false;
+        long position = TrajectoryFormat.HEADER_BYTES;
+        while (!partial && position + TrajectoryFormat.CHUNK_HEADER_BYTES <= fileSize) {
+            chunkHeader.clear();
+            TrajectoryFormat.readFully(channel, chunkHeader, position);
+            int compressedBytes = chunkHeader.getInt(8);
+            int frames = chunkHeader.getInt(12);
+            if (chunkHeader.getInt(0) != TrajectoryFormat.CHUNK_MAGIC || compressedBytes < 0
+                    || frames <= 0 || frames > framesPerChunk
+                    || position + TrajectoryFormat.CHUNK_HEADER_BYTES + compressedBytes > fileSize) {
+                break;
+            }
+            try {
+                inflateChunk(position, chunkCount);
+            } catch (IOException e) {
+                break;
+            }
+
+            // 只解析帧头：跳过坐标差值
+            TrajectoryFormat.ByteSource source = new TrajectoryFormat.ByteSource(raw, rawLength);
+            int firstFrame = frameCount;
+            try {
+                source.readLong();
+                for (int f = 0; f < frames; f++) {
+                    long frameTick = source.readLong();
+                    int count = source.readVarInt();
+                    for (long i = 3L * count; i > 0; i--) {
+                        source.readSignedVarInt();
+                    }
+                    if (frameCount == frameTicks.length) {
+                        frameTicks = Arrays.copyOf(frameTicks, frameTicks.length * 2);
+                    }
+                    frameTicks[frameCount++] = frameTick;
+                }
+            } catch (IOException e) {
+                frameCount = firstFrame;
+                break;
+            }
+
+            if (chunkCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[chunkCount++] = position;
+            position += TrajectoryFormat.CHUNK_HEADER_BYTES + compressedBytes;
+            // 帧号按framesPerChunk换算块号，不满的块只能是最后一块
+            partial = frames < framesPerChunk;
+        }
+        cachedChunk = -1;
+        this.chunkOffsets = Arrays.copyOf(offsets, chunkCount);
+        this.ticks = Arrays.copyOf(frameTicks, frameCount);
+        this.recovered = true;
+    }
+
+    /**
+     * 读取指定更新序号的帧
+     *
+     * @throws IllegalArgumentException 该序号没有被记录
+     */
+    public Frame read(long tick) throws IOException {
+        int frame = Arrays.binarySearch(ticks, tick);
+        if (frame < 0) {
+            throw new IllegalArgumentException("Tick " + tick + " was not recorded");
+        }
+        return readFrame(frame);
+    }
+
+    /**
+     * 读取第n个记录的帧
+     */
+    public Frame readFrame(int frame) throws IOException {
+        if (frame < 0 || frame >= ticks.length) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + ticks.length);
+        }
+        loadChunk(frame / framesPerChunk);
+
+        // 块内各帧相对上一帧差分，需从块首依次解码
+        TrajectoryFormat.ByteSource source = new TrajectoryFormat.ByteSource(raw, rawLength);
+        double quantum = Double.longBitsToDouble(source.readLong());
+        int previousCount = 0;
+        int target = frame % framesPerChunk;
+        for (int f = 0; ; f++) {
+            long frameTick = source.readLong();
+            int count = source.readVarInt();
+            for (int axis = 0; axis < 3; axis++) {
+                if (decoded[axis].length < count) {
+                    decoded[axis] = Arrays.copyOf(decoded[axis], Math.max(count, decoded[axis].length * 2));
+                }
+                int[] values = decoded[axis];
+                for (int i = 0; i < count; i++) {
+                    int delta = source.readSignedVarInt();
+                    values[i] = i < previousCount ? values[i] + delta : delta;
+                }
+            }
+            previousCount = count;
+
+            if (f == target) {
+                Frame result = new Frame(frameTick, count, quantum);
+                float[][] axes = {result.x, result.y, result.z};
+                for (int axis = 0; axis < 3; axis++) {
+                    int[] values = decoded[axis];
+                    float[] out = axes[axis];
+                    for (int i = 0; i < count; i++) {
+                        out[i] = (float) (values[i] * quantum);
+                    }
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * 读取并解压一个块（已缓存时直接返回）
+     */
+    private void loadChunk(int index) throws IOException {
+        if (index == cachedChunk) {
+            return;
+        }
+        cachedChunk = -1;
+        inflateChunk(chunkOffsets[index], index);
+        cachedChunk = index;
+    }
+
+    /**
+     * 读取并解压offset处的块到raw
+     */
+    private void inflateChunk(long offset, int index) throws IOException {
+        chunkHeader.clear();
+        TrajectoryFormat.readFully(channel, chunkHeader, offset);
+        int rawBytes = chunkHeader.getInt(4);
+        int compressedBytes = chunkHeader.getInt(8);
+        if (chunkHeader.getInt(0) != TrajectoryFormat.CHUNK_MAGIC || rawBytes < 0 || compressedBytes < 0) {
+            throw new IOException("Corrupt trajectory chunk " + index);
+        }
+        if (compressed.length < compressedBytes) {
+            compressed = new byte[compressedBytes];
+        }
+        if (raw.length < rawBytes) {
+            raw = new byte[rawBytes];
+        }
+        TrajectoryFormat.readFully(channel, ByteBuffer.wrap(compressed, 0, compressedBytes),
+                offset + TrajectoryFormat.CHUNK_HEADER_BYTES);
+
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedBytes);
+        try {
+            int length = 0;
+            while (length < rawBytes && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, rawBytes - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawBytes) {
+                throw new IOException("Truncated trajectory chunk " + index);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt trajectory chunk " + index, e);
+        }
+        rawLength = rawBytes;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        TrajectoryFormat.readFully(channel, buffer, position);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    // ========== Getter方法 ==========
+
+    /**
+     * 记录的帧数
+     */
+    public int getFrameCount() {
+        return ticks.length;
+    }
+
+    /**
+     * 第n帧的更新序号
+     */
+    public long getTick(int frame) {
+        return ticks[frame];
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getFramesPerChunk() {
+        return framesPerChunk;
+    }
+
+    public int getPrecisionBits() {
+        return precisionBits;
+    }
+
+    /**
+     * 文件是否没有索引（记录器未关闭），索引由扫描数据块重建
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+}
@@ -0,0 +1,363 @@
+package org.example.simulation;
+
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.Stage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 粒子轨迹记录器
+ * 每隔固定的更新次数复制一次粒子位置，交给后台线程量化、差分编码并按块压缩，追加写入轨迹文件；
+ * 关闭时在文件末尾写入帧索引，TrajectoryReader据此随机读取任意一帧；
+ * 未关闭的文件（进程崩溃或被终止）没有索引，读取器扫描已写出的完整块重建索引
+ */
+public class TrajectoryRecorder {
+    // 默认每块帧数
+    public static final int DEFAULT_FRAMES_PER_CHUNK = 16;
+    // 默认量化精度：块内第一帧最大坐标绝对值的2^-20
+    public static final int DEFAULT_PRECISION_BITS = 20;
+
+    /**
+     * 一帧粒子位置 - 由记录器持有并循环复用
+     */
+    private static final class Sample {
+        long tick;
+        int count;
+        float[] x = new float[0];
+        float[] y = new float[0];
+        float[] z = new float[0];
+
+        void ensureCapacity(int capacity) {
+            if (x.length < capacity) {
+                x = new float[capacity];
+                y = new float[capacity];
+                z = new float[capacity];
+            }
+        }
+    }
+
+    // 结束标记
+    private static final Sample END_OF_STREAM = new Sample();
+    // 等待空闲帧缓冲时检查写出线程状态的间隔
+    private static final long FREE_POLL_MILLIS = 100;
+
+    private final int interval;
+    private final int framesPerChunk;
+    private final int precisionBits;
+    private final BlockingQueue<Sample> pending;
+    private final BlockingQueue<Sample> free;
+    private final Thread thread;
+    private final MetricsRegistry metrics;
+    private long lastTick = Long.MIN_VALUE;
+
+    private volatile IOException failure;
+
+    // 以下字段只由写出线程访问
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.CHUNK_HEADER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final TrajectoryFormat.ByteSink chunk = new TrajectoryFormat.ByteSink();
+    private byte[] compressed = new byte[1 << 16];
+    private final int[][] previous = {new int[0], new int[0], new int[0]};
+    private int previousCount;
+    private double inverseQuantum;
+    private int framesInChunk;
+    private long[] ticks = new long[64];
+    private int frameCount;
+    private long[] chunkOffsets = new long[16];
+    private int chunkCount;
+    private long position;
+
+    /**
+     * 构造函数 - 默认每块帧数和量化精度
+     *
+     * @param interval 每隔多少次更新记录一帧
+     */
+    public TrajectoryRecorder(Path path, int interval) throws IOException {
+        this(path, interval, DEFAULT_FRAMES_PER_CHUNK, DEFAULT_PRECISION_BITS, 4);
+    }
+
+    /**
+     * 构造函数 - 编码耗时记录到默认指标注册表
+     *
+     * @param interval       每隔多少次更新记录一帧
+     * @param framesPerChunk 每个压缩块的帧数，越大压缩率越高、随机读取时需解码的帧越多
+     * @param precisionBits  量化精度：每块的量化步长为块内第一帧最大坐标绝对值的2^-precisionBits
+     * @param capacity       同时存在的帧缓冲数量
+     */
+    public TrajectoryRecorder(Path path, int interval, int framesPerChunk, int precisionBits, int capacity)
+            throws IOException {
+        this(path, interval, framesPerChunk, precisionBits, capacity, MetricsRegistry.getDefault());
+    }
+
+    /**
+     * 构造函数 - 创建（覆盖）轨迹文件并启动写出线程
+     *
+     * @param metrics 记录编码耗时的指标注册表
+     */
+    public TrajectoryRecorder(Path path, int interval, int framesPerChunk, int precisionBits, int capacity,
+                              MetricsRegistry metrics) throws IOException {
+        if (interval <= 0 || framesPerChunk <= 0 || precisionBits < 1 || precisionBits > 30 || capacity <= 0) {
+            throw new IllegalArgumentException("Invalid trajectory recorder settings: interval=" + interval
+                    + ", framesPerChunk=" + framesPerChunk + ", precisionBits=" + precisionBits
+                    + ", capacity=" + capacity);
+        }
+        this.interval = interval;
+        this.framesPerChunk = framesPerChunk;
+        this.precisionBits = precisionBits;
+        this.metrics = metrics;
+        this.pending = new ArrayBlockingQueue<>(capacity + 1);
+        this.free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.add(new Sample());
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer fileHeader = ByteBuffer.allocate(TrajectoryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        fileHeader.putInt(TrajectoryFormat.MAGIC)
+                .putInt(TrajectoryFormat.VERSION)
+                .putInt(TrajectoryFormat.HEADER_BYTES)
+                .putInt(framesPerChunk)
+                .putInt(interval)
+                .putInt(precisionBits)
+                .putLong(0L)
+                .flip();
+        try {
+            TrajectoryFormat.writeFully(channel, fileHeader);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        position = TrajectoryFormat.HEADER_BYTES;
+
+        this.thread = new Thread(this::drain, "trajectory-writer");
+        this.thread.start();
+    }
+
+    /**
+     * 在每次AccretionDisk.update()后调用；tick是间隔的整数倍时复制粒子位置并提交（写出线程落后时阻塞）
+     *
+     * @param tick 更新序号，必须递增
+     * @return 是否记录了这一帧
+     */
+    public boolean record(AccretionDisk disk, long tick) throws IOException, InterruptedException {
+        if (tick % interval != 0) {
+            return false;
+        }
+        if (tick <= lastTick) {
+            throw new IllegalArgumentException("Ticks must increase: " + tick + " after " + lastTick);
+        }
+        checkFailure();
+        Sample sample;
+        // 写出线程意外退出时不再归还帧缓冲，限时等待以免永久阻塞
+        while ((sample = free.poll(FREE_POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkFailure();
+            if (!thread.isAlive()) {
+                throw new IOException("Trajectory writer thread has stopped");
+            }
+        }
+        sample.ensureCapacity(disk.getActiveParticleCount());
+        sample.tick = tick;
+        sample.count = disk.copyPositions(sample.x, sample.y, sample.z);
+        pending.put(sample);
+        lastTick = tick;
+        return true;
+    }
+
+    /**
+     * 写出剩余的帧和索引，结束写出线程并关闭文件
+     */
+    public void close() throws IOException, InterruptedException {
+        pending.put(END_OF_STREAM);
+        thread.join();
+        checkFailure();
+    }
+
+    /**
+     * 写出线程主循环
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Sample sample = pending.take();
+                if (sample == END_OF_STREAM) {
+                    break;
+                }
+                try {
+                    if (failure == null) {
+                        long start = System.nanoTime();
+                        encode(sample);
+                        metrics.recordSince(Stage.TRAJECTORY_ENCODE, start);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException | Error e) {
+                    failure = new IOException("Could not encode trajectory frame at tick " + sample.tick, e);
+                } finally {
+                    free.put(sample);
+                }
+            }
+            if (failure == null) {
+                if (framesInChunk > 0) {
+                    flushChunk();
+                }
+                writeIndex();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException | Error e) {
+            failure = new IOException("Could not finish trajectory file", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deflater.end();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 编码一帧：块内第一帧相对0编码，之后相对上一帧同一索引的粒子编码（新增粒子相对0）
+     */
+    private void encode(Sample sample) throws IOException {
+        int count = sample.count;
+        float[][] axes = {sample.x, sample.y, sample.z};
+        if (framesInChunk == 0) {
+            // 量化步长按块确定，写在块首；块内后续帧超出范围的坐标被截断
+            double quantum = quantum(axes, count);
+            inverseQuantum = 1.0 / quantum;
+            chunk.writeLong(Double.doubleToLongBits(quantum));
+        }
+        chunk.writeLong(sample.tick);
+        chunk.writeVarInt(count);
+        for (int axis = 0; axis < 3; axis++) {
+            if (previous[axis].length < count) {
+                previous[axis] = Arrays.copyOf(previous[axis], Math.max(count, previous[axis].length * 2));
+            }
+            float[] values = axes[axis];
+            int[] last = previous[axis];
+            for (int i = 0; i < count; i++) {
+                int q = TrajectoryFormat.quantize(values[i], inverseQuantum);
+                chunk.writeSignedVarInt(i < previousCount ? q - last[i] : q);
+                last[i] = q;
+            }
+        }
+        previousCount = count;
+
+        if (frameCount == ticks.length) {
+            ticks = Arrays.copyOf(ticks, ticks.length * 2);
+        }
+        ticks[frameCount++] = sample.tick;
+        if (++framesInChunk == framesPerChunk) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * 量化步长：最大有限坐标绝对值的2^-precisionBits（int范围还留有2^(31-precisionBits)倍余量）
+     */
+    private double quantum(float[][] axes, int count) {
+        float max = 0.0f;
+        for (float[] values : axes) {
+            for (int i = 0; i < count; i++) {
+                float magnitude = Math.abs(values[i]);
+                if (magnitude > max && magnitude != Float.POSITIVE_INFINITY) {
+                    max = magnitude;
+                }
+            }
+        }
+        return max > 0.0f ? Math.scalb((double) max, -precisionBits) : 1.0;
+    }
+
+    /**
+     * 压缩并追加当前块
+     */
+    private void flushChunk() throws IOException {
+        deflater.reset();
+        deflater.setInput(chunk.data, 0, chunk.length);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        if (chunkCount == chunkOffsets.length) {
+            chunkOffsets = Arrays.copyOf(chunkOffsets, chunkOffsets.length * 2);
+        }
+        chunkOffsets[chunkCount++] = position;
+
+        header.clear();
+        header.putInt(TrajectoryFormat.CHUNK_MAGIC)
+                .putInt(chunk.length)
+                .putInt(length)
+                .putInt(framesInChunk)
+                .flip();
+        TrajectoryFormat.writeFully(channel, header);
+        TrajectoryFormat.writeFully(channel, ByteBuffer.wrap(compressed, 0, length));
+        position += TrajectoryFormat.CHUNK_HEADER_BYTES + length;
+
+        chunk.clear();
+        framesInChunk = 0;
+        previousCount = 0;
+    }
+
+    /**
+     * 写出索引：各块偏移和每帧的更新序号，最后是索引位置和魔数
+     */
+    private void writeIndex() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(12 + chunkCount * 8 + frameCount * 8 + TrajectoryFormat.TRAILER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(TrajectoryFormat.INDEX_MAGIC)
+                .putInt(chunkCount)
+                .putInt(frameCount);
+        for (int c = 0; c < chunkCount; c++) {
+            index.putLong(chunkOffsets[c]);
+        }
+        for (int f = 0; f < frameCount; f++) {
+            index.putLong(ticks[f]);
+        }
+        index.putLong(position)
+                .putInt(TrajectoryFormat.MAGIC)
+                .flip();
+        TrajectoryFormat.writeFully(channel, index);
+        channel.force(false);
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getFramesPerChunk() {
+        return framesPerChunk;
+    }
+
+    public int getPrecisionBits() {
+        return precisionBits;
+    }
+}